@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark;
+
+import com.atlassian.jira.rest.client.api.domain.IssueType;
+import com.atlassian.jira.rest.client.api.domain.Status;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.IssueTypeMapService;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.StatusMapService;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.IssueStatus;
+
+/**
+ * Maps every status and issue type to the same value, so that benchmarks don't need Jira.
+ */
+class FixedMappings implements StatusMapService, IssueTypeMapService {
+
+    @Override
+    public IssueStatus getStatusFor(Status status) {
+        return IssueStatus.IN_PROGRESS;
+    }
+
+    @Override
+    public IssueStatus getStatusFor(Long id, String name) {
+        return IssueStatus.IN_PROGRESS;
+    }
+
+    @Override
+    public String getIssueTypeFor(IssueType id) {
+        return "Story";
+    }
+
+    @Override
+    public String getIssueTypeFor(Long id, String name) {
+        return "Story";
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StreamUtils;
+
+/**
+ * A local HTTP server standing in for a remote service. Every request is delayed by
+ * {@code latencyMillis} before being answered, and the requests and bytes that went
+ * through the wire are counted.
+ */
+abstract class HttpStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+
+    HttpStub(String name, long latencyMillis) throws IOException {
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(name + "-stub-");
+        threadFactory.setDaemon(true);
+
+        this.executor = Executors.newCachedThreadPool(threadFactory);
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.setExecutor(executor);
+    }
+
+    @FunctionalInterface
+    interface Handler {
+
+        Response handle(String method, URI uri, byte[] body) throws IOException;
+    }
+
+    static final class Response {
+
+        private static final byte[] EMPTY = new byte[0];
+
+        private final int status;
+        private final byte[] body;
+
+        private Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Response json(byte[] body) {
+            return new Response(200, body);
+        }
+
+        static Response json(String body) {
+            return json(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Response status(int status) {
+            return new Response(status, EMPTY);
+        }
+    }
+
+    void handle(String path, Handler handler) {
+        server.createContext(path, (exchange) -> {
+            try {
+                requests.increment();
+                final Response response = handler.handle(
+                    exchange.getRequestMethod(), exchange.getRequestURI(), readBody(exchange));
+                Thread.sleep(latencyMillis);
+                writeResponse(exchange, response);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+                writeResponse(exchange, Response.status(500));
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+
+    String url() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    void start() {
+        server.start();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    void reset() {
+        requests.reset();
+        bytesReceived.reset();
+        bytesSent.reset();
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    long bytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    long bytesSent() {
+        return bytesSent.sum();
+    }
+
+    static Map<String, String> queryParams(URI uri) {
+        final Map<String, String> params = new HashMap<>();
+        if (uri.getRawQuery() == null) {
+            return params;
+        }
+        for (String param : uri.getRawQuery().split("&")) {
+            final int equals = param.indexOf('=');
+            if (equals > 0) {
+                params.put(decode(param.substring(0, equals)), decode(param.substring(equals + 1)));
+            }
+        }
+        return params;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        final byte[] wire = StreamUtils.copyToByteArray(exchange.getRequestBody());
+        bytesReceived.add(wire.length);
+
+        if (!"gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            return wire;
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(wire))) {
+            return StreamUtils.copyToByteArray(in);
+        }
+    }
+
+    private void writeResponse(HttpExchange exchange, Response response) throws IOException {
+        if (response.body.length > 0) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+        }
+        exchange.sendResponseHeaders(response.status, response.body.length > 0 ? response.body.length : -1);
+        if (response.body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response.body);
+            }
+        }
+        bytesSent.add(response.body.length);
+    }
+}
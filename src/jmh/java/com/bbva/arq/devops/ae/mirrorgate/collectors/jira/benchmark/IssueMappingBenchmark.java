@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark;
+
+import com.atlassian.jira.rest.client.api.domain.Issue;
+import com.atlassian.jira.rest.client.api.domain.SearchResult;
+import com.atlassian.jira.rest.client.internal.json.SearchResultJsonParser;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.FieldsConfig;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.SearchPage;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.JiraIssueFields;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.JiraIssueUtils;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.JiraSearchResponseParser;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+/**
+ * Maps a search page to {@link IssueDTO}s through JRCP and through
+ * {@link JiraSearchResponseParser}. Run with {@code -prof gc} to compare the allocation
+ * per page, e.g. {@code ./gradlew jmh -PjmhArgs="IssueMappingBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class IssueMappingBenchmark {
+
+    @Param({"all", "projected"})
+    public String fields;
+
+    @Param({"50"})
+    public int pageSize;
+
+    private String response;
+    private byte[] responseBytes;
+
+    private JiraIssueUtils utils;
+    private JiraSearchResponseParser parser;
+
+    @Setup
+    public void setup() throws JSONException, IOException {
+        final JSONObject page = JiraSearchFixtures.searchPage(0, pageSize, pageSize, 42);
+        response = "all".equals(fields)
+            ? page.toString()
+            : JiraSearchFixtures.project(page, SearchFieldsBenchmark.searchFields()).toString();
+        responseBytes = response.getBytes(StandardCharsets.UTF_8);
+
+        try (AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext()) {
+            ctx.getEnvironment().getPropertySources()
+                .addFirst(new ResourcePropertySource("classpath:application.properties"));
+            ctx.register(FieldsConfig.class);
+            ctx.refresh();
+
+            final List<String> keywordsFields = ctx.getBean(FieldsConfig.KEYWORDS_FIELD_BEAN, List.class);
+            final Map<JiraIssueFields, String> jiraFields = ctx.getBean(FieldsConfig.JIRA_FIELDS_BEAN, Map.class);
+            final FixedMappings mappings = new FixedMappings();
+
+            utils = new JiraIssueUtils(keywordsFields, jiraFields, mappings, mappings);
+            parser = new JiraSearchResponseParser(keywordsFields, jiraFields, mappings, mappings, utils);
+        }
+    }
+
+    @Benchmark
+    public List<IssueDTO> jrcp() throws JSONException {
+        final SearchResult result = new SearchResultJsonParser().parse(new JSONObject(response));
+        final List<IssueDTO> issues = new ArrayList<>();
+        for (Issue issue : result.getIssues()) {
+            issues.add(utils.map(issue));
+        }
+        return issues;
+    }
+
+    @Benchmark
+    public List<IssueDTO> streaming() throws IOException {
+        final SearchPage page = parser.parse(new ByteArrayInputStream(responseBytes));
+        return page.getIssues();
+    }
+}
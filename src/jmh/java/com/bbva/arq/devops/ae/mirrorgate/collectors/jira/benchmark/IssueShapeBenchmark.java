@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark;
+
+import com.atlassian.jira.rest.client.api.domain.Issue;
+import com.atlassian.jira.rest.client.internal.json.SearchResultJsonParser;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark.JiraSearchFixtures.Shape;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.FieldsConfig;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.JiraIssueFields;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.JiraIssueUtils;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.JiraSearchResponseParser;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+/**
+ * Runs the {@link JiraIssueUtils} hot paths over a page of each {@link Shape} of issue, so that
+ * a regression on the largest issues shows up even if typical ones are not affected.
+ *
+ * <p>{@code map} works on the JRCP model, {@code streaming} maps the same page with
+ * {@link JiraSearchResponseParser}. Both read the keywords from cascading custom fields
+ * recursively, which is what the {@code DEEP_CASCADES} shape stresses. Every benchmark
+ * handles one whole page.
+ * The {@code jmh} task also writes the results to {@code build/reports/jmh/results.json},
+ * e.g. {@code ./gradlew jmh -PjmhArgs="IssueShapeBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class IssueShapeBenchmark {
+
+    @Param({"TYPICAL", "MANY_LINKS", "DEEP_CASCADES", "LONG_SPRINT_HISTORY"})
+    public Shape shape;
+
+    @Param({"50"})
+    public int pageSize;
+
+    private List<Issue> issues;
+    private List<List<String>> sprints;
+
+    private byte[] response;
+
+    private JiraIssueUtils utils;
+    private JiraSearchResponseParser parser;
+
+    @Setup
+    public void setup() throws JSONException, IOException {
+        try (AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext()) {
+            ctx.getEnvironment().getPropertySources()
+                .addFirst(new ResourcePropertySource("classpath:application.properties"));
+            ctx.register(FieldsConfig.class);
+            ctx.refresh();
+
+            final List<String> keywordsFields = ctx.getBean(FieldsConfig.KEYWORDS_FIELD_BEAN, List.class);
+            final Map<JiraIssueFields, String> jiraFields = ctx.getBean(FieldsConfig.JIRA_FIELDS_BEAN, Map.class);
+            final FixedMappings mappings = new FixedMappings();
+
+            utils = new JiraIssueUtils(keywordsFields, jiraFields, mappings, mappings);
+
+            parser = new JiraSearchResponseParser(keywordsFields, jiraFields, mappings, mappings, utils);
+
+            final JSONObject page = JiraSearchFixtures.searchPage(0, pageSize, pageSize, 42, shape);
+            response = page.toString().getBytes(StandardCharsets.UTF_8);
+
+            issues = new ArrayList<>();
+            new SearchResultJsonParser().parse(page).getIssues().forEach(issues::add);
+
+            final JSONArray pageIssues = page.getJSONArray("issues");
+            sprints = new ArrayList<>(pageIssues.length());
+            for (int i = 0; i < pageIssues.length(); i++) {
+                sprints.add(strings(pageIssues.getJSONObject(i).getJSONObject("fields")
+                    .getJSONArray(jiraFields.get(JiraIssueFields.SPRINT))));
+            }
+        }
+    }
+
+    @Benchmark
+    public void map(Blackhole blackhole) {
+        for (Issue issue : issues) {
+            blackhole.consume(utils.map(issue));
+        }
+    }
+
+    @Benchmark
+    public List<IssueDTO> streaming() throws IOException {
+        return parser.parse(new ByteArrayInputStream(response)).getIssues();
+    }
+
+    @Benchmark
+    public void parseSprint(Blackhole blackhole) {
+        for (List<String> history : sprints) {
+            for (String sprint : history) {
+                blackhole.consume(utils.parseSprint(sprint));
+            }
+        }
+    }
+
+    @Benchmark
+    public void getPriorSprint(Blackhole blackhole) {
+        for (List<String> history : sprints) {
+            blackhole.consume(utils.getPriorSprint(history));
+        }
+    }
+
+    private static List<String> strings(JSONArray values) throws JSONException {
+        final List<String> strings = new ArrayList<>(values.length());
+        for (int i = 0; i < values.length(); i++) {
+            strings.add(values.getString(i));
+        }
+        return strings;
+    }
+}
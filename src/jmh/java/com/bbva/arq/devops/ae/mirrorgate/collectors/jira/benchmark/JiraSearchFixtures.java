@@ -0,0 +1,314 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+/**
+ * Builds {@code /rest/api/2/search} responses shaped like the ones returned by Jira Server,
+ * including the fields the collector never reads (comments, worklogs, watchers...).
+ *
+ * <p>Pages are generated from a seed, so the same arguments always give the same response.
+ * A {@link Shape} other than {@code TYPICAL} stretches one dimension of every issue to the
+ * size seen on the largest projects.
+ */
+public final class JiraSearchFixtures {
+
+    public enum Shape {
+        /** Up to 3 parent links, a two level cascading field and two sprints. */
+        TYPICAL,
+        /** 40 to 60 links of several types, both inward and outward. */
+        MANY_LINKS,
+        /** Cascading select fields nested 10 to 15 levels deep. */
+        DEEP_CASCADES,
+        /** Issues carried over 20 to 40 sprints. */
+        LONG_SPRINT_HISTORY
+    }
+
+    public static final String JIRA_URL = "http://jira.local";
+
+    private static final String TEXT = "As a user I want the board to show the real status of the sprint so that "
+        + "the team can react before the review. Acceptance criteria are described in the linked page. ";
+
+    private JiraSearchFixtures() {
+    }
+
+    public static JSONObject searchPage(int startAt, int size, int total, long seed) throws JSONException {
+        return searchPage(startAt, size, total, seed, Shape.TYPICAL);
+    }
+
+    public static JSONObject searchPage(int startAt, int size, int total, long seed, Shape shape)
+        throws JSONException {
+        final Random random = new Random(seed);
+        final JSONArray issues = new JSONArray();
+        for (int i = 0; i < size && startAt + i < total; i++) {
+            issues.put(issue(10000 + startAt + i, random, shape));
+        }
+
+        return new JSONObject()
+            .put("expand", "schema,names")
+            .put("startAt", startAt)
+            .put("maxResults", size)
+            .put("total", total)
+            .put("issues", issues)
+            .put("names", new JSONObject()
+                .put("summary", "Summary")
+                .put("customfield_10002", "Story Points")
+                .put("customfield_10008", "Sprint"))
+            .put("schema", new JSONObject()
+                .put("summary", new JSONObject().put("type", "string").put("system", "summary"))
+                .put("customfield_10002", new JSONObject().put("type", "number")));
+    }
+
+    /**
+     * Returns a copy of the page keeping only the given fields on every issue.
+     */
+    public static JSONObject project(JSONObject page, Set<String> fields) throws JSONException {
+        final JSONObject projected = new JSONObject(page.toString());
+        final JSONArray issues = projected.getJSONArray("issues");
+        for (int i = 0; i < issues.length(); i++) {
+            final JSONObject issueFields = issues.getJSONObject(i).getJSONObject("fields");
+            final Iterator<?> keys = new JSONObject(issueFields.toString()).keys();
+            while (keys.hasNext()) {
+                final String key = (String) keys.next();
+                if (!fields.contains(key)) {
+                    issueFields.remove(key);
+                }
+            }
+        }
+        return projected;
+    }
+
+    private static JSONObject issue(long id, Random random, Shape shape) throws JSONException {
+        final String key = "MG-" + id;
+        final JSONObject fields = new JSONObject()
+            .put("summary", "Story number " + id)
+            .put("issuetype", named(10001, "Story", "/issuetype/").put("subtask", false))
+            .put("status", named(3, "In Progress", "/status/")
+                .put("statusCategory", named(4, "In Progress", "/statuscategory/")
+                    .put("key", "indeterminate").put("colorName", "yellow")))
+            .put("priority", named(3, "Major", "/priority/"))
+            .put("project", named(10100, "MirrorGate", "/project/").put("key", "MG")
+                .put("projectTypeKey", "software"))
+            .put("created", "2017-06-14T11:59:37.474+0200")
+            .put("updated", "2017-06-27T18:59:00.000+0200")
+            .put("issuelinks", shape == Shape.MANY_LINKS ? links(id, 40 + random.nextInt(21), random)
+                : links(id, random.nextInt(4)))
+            .put("customfield_10002", (double) random.nextInt(13))
+            .put("customfield_10008", shape == Shape.LONG_SPRINT_HISTORY ? sprints(20 + random.nextInt(21))
+                : new JSONArray()
+                    .put(sprint(1879, "CLOSED", "MIRRORGATE_PI03_2017_SP2", "2017-06-27T18:59:00.000+02:00"))
+                    .put(sprint(1941, "ACTIVE", "MIRRORGATE_PI03_2017_SP3", "2017-07-11T21:00:00.000+02:00")))
+            .put("customfield_10245", option(20100, "Team Mirror", null))
+            .put("customfield_10271", shape == Shape.DEEP_CASCADES ? cascade(20200, 10 + random.nextInt(6))
+                : option(20200, "Architecture", option(20201, "DevOps", null)))
+            .put("customfield_10264", new JSONArray().put("PI03_2017"))
+            .put("description", repeat(TEXT, 3 + random.nextInt(6)))
+            .put("environment", JSONObject.NULL)
+            .put("labels", new JSONArray().put("mirrorgate").put("collector"))
+            .put("reporter", user("reporter"))
+            .put("assignee", user("developer" + random.nextInt(8)))
+            .put("creator", user("reporter"))
+            .put("resolution", JSONObject.NULL)
+            .put("resolutiondate", JSONObject.NULL)
+            .put("duedate", JSONObject.NULL)
+            .put("lastViewed", "2017-06-28T10:20:49.865+0200")
+            .put("votes", new JSONObject().put("self", JIRA_URL + "/rest/api/2/issue/" + key + "/votes")
+                .put("votes", 0).put("hasVoted", false))
+            .put("watches", new JSONObject().put("self", JIRA_URL + "/rest/api/2/issue/" + key + "/watchers")
+                .put("watchCount", 1 + random.nextInt(5)).put("isWatching", false))
+            .put("timetracking", new JSONObject().put("originalEstimate", "1d").put("remainingEstimate", "4h")
+                .put("originalEstimateSeconds", 28800).put("remainingEstimateSeconds", 14400))
+            .put("progress", new JSONObject().put("progress", 14400).put("total", 28800).put("percent", 50))
+            .put("aggregateprogress", new JSONObject().put("progress", 14400).put("total", 28800))
+            .put("components", new JSONArray().put(named(10300, "collectors", "/component/")))
+            .put("fixVersions", new JSONArray().put(named(10400, "1.2.0", "/version/")
+                .put("archived", false).put("released", false)))
+            .put("subtasks", new JSONArray())
+            .put("attachment", new JSONArray())
+            .put("comment", comments(key, random.nextInt(8), random))
+            .put("worklog", worklogs(key, random.nextInt(5)));
+
+        for (int i = 0; i < 40; i++) {
+            fields.put("customfield_" + (11000 + i), JSONObject.NULL);
+        }
+
+        return new JSONObject()
+            .put("expand", "operations,versionedRepresentations,editmeta,changelog,renderedFields")
+            .put("id", Long.toString(id))
+            .put("self", JIRA_URL + "/rest/api/2/issue/" + id)
+            .put("key", key)
+            .put("fields", fields);
+    }
+
+    private static JSONObject named(long id, String name, String path) throws JSONException {
+        return new JSONObject()
+            .put("self", JIRA_URL + "/rest/api/2" + path + id)
+            .put("id", Long.toString(id))
+            .put("name", name)
+            .put("description", name)
+            .put("iconUrl", JIRA_URL + "/images/icons/" + id + ".png");
+    }
+
+    private static JSONObject user(String name) throws JSONException {
+        return new JSONObject()
+            .put("self", JIRA_URL + "/rest/api/2/user?username=" + name)
+            .put("name", name)
+            .put("key", name)
+            .put("emailAddress", name + "@example.com")
+            .put("avatarUrls", new JSONObject()
+                .put("48x48", JIRA_URL + "/secure/useravatar?avatarId=10122")
+                .put("24x24", JIRA_URL + "/secure/useravatar?size=small&avatarId=10122")
+                .put("16x16", JIRA_URL + "/secure/useravatar?size=xsmall&avatarId=10122")
+                .put("32x32", JIRA_URL + "/secure/useravatar?size=medium&avatarId=10122"))
+            .put("displayName", name)
+            .put("active", true)
+            .put("timeZone", "Europe/Madrid");
+    }
+
+    private static JSONArray links(long id, int count) throws JSONException {
+        final JSONArray links = new JSONArray();
+        for (int i = 0; i < count; i++) {
+            final long target = id + 1000 + i;
+            links.put(new JSONObject()
+                .put("id", Long.toString(id * 10 + i))
+                .put("self", JIRA_URL + "/rest/api/2/issueLink/" + (id * 10 + i))
+                .put("type", new JSONObject().put("id", "10300").put("name", "Parent")
+                    .put("inward", "is child of").put("outward", "is parent of")
+                    .put("self", JIRA_URL + "/rest/api/2/issueLinkType/10300"))
+                .put("inwardIssue", new JSONObject()
+                    .put("id", Long.toString(target))
+                    .put("key", "MG-" + target)
+                    .put("self", JIRA_URL + "/rest/api/2/issue/" + target)
+                    .put("fields", new JSONObject().put("summary", "Feature " + target))));
+        }
+        return links;
+    }
+
+    private static JSONArray links(long id, int count, Random random) throws JSONException {
+        final String[][] types = {
+            {"10300", "Parent", "is child of", "is parent of"},
+            {"10000", "Blocks", "is blocked by", "blocks"},
+            {"10001", "Cloners", "is cloned by", "clones"},
+            {"10003", "Relates", "relates to", "relates to"}
+        };
+        final JSONArray links = new JSONArray();
+        for (int i = 0; i < count; i++) {
+            final long target = id + 1000 + i;
+            final String[] type = types[random.nextInt(types.length)];
+            links.put(new JSONObject()
+                .put("id", Long.toString(id * 100 + i))
+                .put("self", JIRA_URL + "/rest/api/2/issueLink/" + (id * 100 + i))
+                .put("type", new JSONObject().put("id", type[0]).put("name", type[1])
+                    .put("inward", type[2]).put("outward", type[3])
+                    .put("self", JIRA_URL + "/rest/api/2/issueLinkType/" + type[0]))
+                .put(random.nextBoolean() ? "inwardIssue" : "outwardIssue", new JSONObject()
+                    .put("id", Long.toString(target))
+                    .put("key", "MG-" + target)
+                    .put("self", JIRA_URL + "/rest/api/2/issue/" + target)
+                    .put("fields", new JSONObject()
+                        .put("summary", "Linked " + target)
+                        .put("status", named(3, "In Progress", "/status/"))
+                        .put("priority", named(3, "Major", "/priority/"))
+                        .put("issuetype", named(10001, "Story", "/issuetype/").put("subtask", false)))));
+        }
+        return links;
+    }
+
+    /**
+     * The sprints of an issue carried over {@code count} sprints, the last of them active.
+     */
+    private static JSONArray sprints(int count) {
+        final JSONArray sprints = new JSONArray();
+        for (int i = 0; i < count; i++) {
+            final String endDate = LocalDate.of(2015, 1, 13).plusDays(14L * i) + "T18:59:00.000+02:00";
+            sprints.put(sprint(1941 - count + 1 + i, i == count - 1 ? "ACTIVE" : "CLOSED",
+                "MIRRORGATE_SP" + i, endDate));
+        }
+        return sprints;
+    }
+
+    private static String sprint(long id, String state, String name, String endDate) {
+        return "com.atlassian.greenhopper.service.sprint.Sprint@" + Long.toHexString(id * 7919) + "["
+            + "id=" + id + ",rapidViewId=879,state=" + state + ",name=" + name
+            + ",startDate=2017-06-14T11:59:37.474+02:00,endDate=" + endDate
+            + ",completeDate=<null>,sequence=" + id + "]";
+    }
+
+    private static JSONObject option(long id, String value, JSONObject child) throws JSONException {
+        final JSONObject option = new JSONObject()
+            .put("self", JIRA_URL + "/rest/api/2/customFieldOption/" + id)
+            .put("value", value)
+            .put("id", Long.toString(id));
+        return child == null ? option : option.put("child", child);
+    }
+
+    private static JSONObject cascade(long id, int depth) throws JSONException {
+        JSONObject option = null;
+        for (int level = depth - 1; level >= 0; level--) {
+            option = option(id + level, "Level " + level, option);
+        }
+        return option;
+    }
+
+    private static JSONObject comments(String key, int count, Random random) throws JSONException {
+        final JSONArray comments = new JSONArray();
+        for (int i = 0; i < count; i++) {
+            comments.put(new JSONObject()
+                .put("self", JIRA_URL + "/rest/api/2/issue/" + key + "/comment/" + i)
+                .put("id", Integer.toString(i))
+                .put("author", user("developer" + random.nextInt(8)))
+                .put("body", repeat(TEXT, 1 + random.nextInt(3)))
+                .put("updateAuthor", user("developer" + random.nextInt(8)))
+                .put("created", "2017-06-20T10:00:00.000+0200")
+                .put("updated", "2017-06-20T10:00:00.000+0200"));
+        }
+        return new JSONObject().put("comments", comments).put("maxResults", count).put("total", count)
+            .put("startAt", 0);
+    }
+
+    private static JSONObject worklogs(String key, int count) throws JSONException {
+        final JSONArray worklogs = new JSONArray();
+        for (int i = 0; i < count; i++) {
+            worklogs.put(new JSONObject()
+                .put("self", JIRA_URL + "/rest/api/2/issue/" + key + "/worklog/" + i)
+                .put("author", user("developer" + i))
+                .put("updateAuthor", user("developer" + i))
+                .put("comment", "Working on it")
+                .put("started", "2017-06-20T10:00:00.000+0200")
+                .put("timeSpent", "2h")
+                .put("timeSpentSeconds", 7200)
+                .put("id", Integer.toString(i)));
+        }
+        return new JSONObject().put("worklogs", worklogs).put("maxResults", 20).put("total", count)
+            .put("startAt", 0);
+    }
+
+    private static String repeat(String text, int times) {
+        final StringBuilder sb = new StringBuilder(text.length() * times);
+        for (int i = 0; i < times; i++) {
+            sb.append(text);
+        }
+        return sb.toString();
+    }
+}
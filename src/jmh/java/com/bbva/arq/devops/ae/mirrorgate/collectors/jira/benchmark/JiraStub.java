@@ -0,0 +1,222 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark.JiraSearchFixtures.Shape;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.joda.time.DateTime;
+
+/**
+ * Answers the Jira REST calls made by the collector: searches, statuses, issue types and
+ * fields. Searches return {@code issues} generated issues whatever the JQL asks for, except
+ * for {@code id IN (...)} searches, which return the issues with those ids that exist.
+ * Issues are updated in id order over the last year, and never more than
+ * {@code maxResults} of them are returned at once, as Jira does.
+ *
+ * <p>Generating the issues would take about as long as mapping them, so a few of them are
+ * rendered up front and every issue is served as one of those with its own id and date.
+ * The {@code fields} asked for are ignored, so every issue carries all its fields.
+ */
+class JiraStub extends HttpStub {
+
+    static final long FIRST_ID = 10000;
+
+    private static final Pattern ID_IN = Pattern.compile("id IN \\(([^)]*)\\)", Pattern.CASE_INSENSITIVE);
+    private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+    private static final int TEMPLATES = 64;
+    private static final long TEMPLATE_ID = 900_000_000L;
+    private static final String UPDATED = "@UPDATED@";
+    private static final String ISSUES = "@ISSUES@";
+
+    private final int issues;
+    private final int maxResults;
+    private final long firstUpdate;
+    private final long updateStep;
+    private final String[] templates = new String[TEMPLATES];
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final LongAdder issuesSent = new LongAdder();
+
+    JiraStub(int issues, int maxResults, Shape shape, long latencyMillis) throws IOException {
+        super("jira", latencyMillis);
+        this.issues = issues;
+        this.maxResults = maxResults;
+        this.firstUpdate = DateTime.now().minusYears(1).getMillis();
+        this.updateStep = Math.max(1, TimeUnit.DAYS.toMillis(365) / Math.max(1, issues));
+
+        try {
+            for (int i = 0; i < TEMPLATES; i++) {
+                final JSONObject issue = JiraSearchFixtures.searchPage(0, 1, 1, i, shape)
+                    .getJSONArray("issues")
+                    .getJSONObject(0);
+                final String id = Long.toString(TEMPLATE_ID + i);
+                issue.put("id", id).put("key", "MG-" + id).put("self", JiraSearchFixtures.JIRA_URL
+                    + "/rest/api/2/issue/" + id);
+                issue.getJSONObject("fields").put("updated", UPDATED);
+                templates[i] = issue.toString();
+            }
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+
+        handle("/rest/api/2/search", this::search);
+        handle("/rest/api/2/status", (method, uri, body) -> Response.json(statuses()));
+        handle("/rest/api/2/issuetype", (method, uri, body) -> Response.json(issueTypes()));
+        handle("/rest/api/2/field", (method, uri, body) -> Response.json(fields()));
+    }
+
+    @Override
+    void reset() {
+        super.reset();
+        issuesSent.reset();
+    }
+
+    long issuesSent() {
+        return issuesSent.sum();
+    }
+
+    private Response search(String method, URI uri, byte[] body) throws IOException {
+        final String jql;
+        final int startAt;
+        final int requested;
+        if ("POST".equals(method)) {
+            final JsonNode request = mapper.readTree(body);
+            jql = request.path("jql").asText();
+            startAt = request.path("startAt").asInt(0);
+            requested = request.path("maxResults").asInt(50);
+        } else {
+            final Map<String, String> params = queryParams(uri);
+            jql = params.getOrDefault("jql", "");
+            startAt = Integer.parseInt(params.getOrDefault("startAt", "0"));
+            requested = Integer.parseInt(params.getOrDefault("maxResults", "50"));
+        }
+
+        final List<Long> ids = requestedIds(jql);
+        final int total = ids == null ? issues : ids.size();
+        final int size = Math.min(requested, maxResults);
+        final StringBuilder page = new StringBuilder("[");
+        for (int i = startAt; i < total && i < startAt + size; i++) {
+            if (i > startAt) {
+                page.append(',');
+            }
+            page.append(issue(ids == null ? FIRST_ID + i : ids.get(i)));
+            issuesSent.increment();
+        }
+        page.append(']');
+
+        try {
+            return Response.json(JiraSearchFixtures.searchPage(0, 0, 0, 0)
+                .put("startAt", startAt)
+                .put("maxResults", size)
+                .put("total", total)
+                .put("issues", ISSUES)
+                .toString()
+                .replace("\"" + ISSUES + "\"", page));
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the ids of an {@code id IN (...)} search that exist, or null for any other search.
+     */
+    private List<Long> requestedIds(String jql) {
+        final Matcher idIn = ID_IN.matcher(jql);
+        if (!idIn.find()) {
+            return null;
+        }
+
+        final List<Long> ids = new ArrayList<>();
+        for (String id : idIn.group(1).split(",")) {
+            final long value = Long.parseLong(id.trim());
+            if (value >= FIRST_ID && value < FIRST_ID + issues) {
+                ids.add(value);
+            }
+        }
+        return ids;
+    }
+
+    private String issue(long id) {
+        return templates[(int) (id % TEMPLATES)]
+            .replace(Long.toString(TEMPLATE_ID + id % TEMPLATES), Long.toString(id))
+            .replace(UPDATED, new DateTime(firstUpdate + (id - FIRST_ID) * updateStep).toString(DATE_FORMAT));
+    }
+
+    private static String statuses() {
+        return "["
+            + status(1, "To Do", "new") + ","
+            + status(3, "In Progress", "indeterminate") + ","
+            + status(10001, "Done", "done")
+            + "]";
+    }
+
+    private static String status(long id, String name, String category) {
+        return "{\"self\":\"" + JiraSearchFixtures.JIRA_URL + "/rest/api/2/status/" + id + "\","
+            + "\"id\":\"" + id + "\",\"name\":\"" + name + "\",\"description\":\"" + name + "\","
+            + "\"iconUrl\":\"" + JiraSearchFixtures.JIRA_URL + "/images/icons/status.png\","
+            + "\"statusCategory\":{\"self\":\"" + JiraSearchFixtures.JIRA_URL + "/rest/api/2/statuscategory/"
+            + category + "\",\"id\":" + id + ",\"key\":\"" + category + "\",\"colorName\":\"blue\","
+            + "\"name\":\"" + name + "\"}}";
+    }
+
+    private static String issueTypes() {
+        return "["
+            + issueType(1, "Bug") + ","
+            + issueType(3, "Task") + ","
+            + issueType(10000, "Epic") + ","
+            + issueType(10001, "Story") + ","
+            + issueType(10002, "Feature")
+            + "]";
+    }
+
+    private static String issueType(long id, String name) {
+        return "{\"self\":\"" + JiraSearchFixtures.JIRA_URL + "/rest/api/2/issuetype/" + id + "\","
+            + "\"id\":\"" + id + "\",\"name\":\"" + name + "\",\"description\":\"" + name + "\","
+            + "\"iconUrl\":\"" + JiraSearchFixtures.JIRA_URL + "/images/icons/issuetype.png\",\"subtask\":false}";
+    }
+
+    private static String fields() {
+        return "["
+            + field("summary", "Summary", false, "string") + ","
+            + field("updated", "Updated", false, "datetime") + ","
+            + field("customfield_10002", "Story Points", true, "number") + ","
+            + field("customfield_10008", "Sprint", true, "array") + ","
+            + field("customfield_10245", "Team", true, "option") + ","
+            + field("customfield_10264", "PI", true, "array") + ","
+            + field("customfield_10271", "Area", true, "option-with-child")
+            + "]";
+    }
+
+    private static String field(String id, String name, boolean custom, String type) {
+        return "{\"id\":\"" + id + "\",\"name\":\"" + name + "\",\"custom\":" + custom + ","
+            + "\"orderable\":true,\"navigable\":true,\"searchable\":true,"
+            + "\"clauseNames\":[\"" + id + "\"],\"schema\":{\"type\":\"" + type + "\"}}";
+    }
+}
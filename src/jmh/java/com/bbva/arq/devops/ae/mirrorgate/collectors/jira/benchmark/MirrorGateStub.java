@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.SprintDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.SprintStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers the MirrorGate API calls made by the collector. It has no previous collector
+ * date, so every run is a full backfill, and it counts the issues posted to it.
+ *
+ * <p>The changing sprint sample has {@code sampleSprints} sprints of
+ * {@code issuesPerSprint} issues each. Every other one is the sprint the generated issues
+ * are active in, so their issues are unchanged; the rest are closed sprints, so the
+ * collector finds their issues moved and syncs both sprints.
+ */
+class MirrorGateStub extends HttpStub {
+
+    private static final String ACTIVE_SPRINT = "1941";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, SprintDTO> sprints = new LinkedHashMap<>();
+    private final LongAdder issuesReceived = new LongAdder();
+    private final LongAdder issuesDeleted = new LongAdder();
+
+    MirrorGateStub(int issues, int sampleSprints, int issuesPerSprint, long latencyMillis) throws IOException {
+        super("mirrorgate", latencyMillis);
+
+        final List<IssueDTO> active = new ArrayList<>();
+        for (int s = 0; s < sampleSprints; s++) {
+            final List<IssueDTO> sprintIssues = new ArrayList<>(issuesPerSprint);
+            for (int i = 0; i < issuesPerSprint; i++) {
+                sprintIssues.add(new IssueDTO().setId(JiraStub.FIRST_ID + (s * issuesPerSprint + i) % issues));
+            }
+
+            if (s % 2 == 0) {
+                active.addAll(sprintIssues);
+            } else {
+                final String id = String.valueOf(5000 + s);
+                sprints.put(id, sprint(id, SprintStatus.CLOSED, sprintIssues));
+            }
+        }
+        if (!active.isEmpty()) {
+            sprints.put(ACTIVE_SPRINT, sprint(ACTIVE_SPRINT, SprintStatus.ACTIVE, active));
+        }
+
+        handle("/api/issues", this::issues);
+        handle("/api/sprints", this::sprints);
+        handle("/api/collectors", (method, uri, body) ->
+            "GET".equals(method) ? Response.status(404) : Response.status(200));
+    }
+
+    @Override
+    void reset() {
+        super.reset();
+        issuesReceived.reset();
+        issuesDeleted.reset();
+    }
+
+    long issuesReceived() {
+        return issuesReceived.sum();
+    }
+
+    long issuesDeleted() {
+        return issuesDeleted.sum();
+    }
+
+    private Response issues(String method, URI uri, byte[] body) throws IOException {
+        if ("POST".equals(method)) {
+            issuesReceived.add(mapper.readTree(body).size());
+        } else if ("DELETE".equals(method)) {
+            issuesDeleted.increment();
+        }
+        return Response.status(200);
+    }
+
+    private Response sprints(String method, URI uri, byte[] body) throws IOException {
+        final String id = uri.getPath().substring(uri.getPath().lastIndexOf('/') + 1);
+        if ("changing-sample".equals(id)) {
+            return Response.json(mapper.writeValueAsBytes(sprints.values()));
+        }
+        final SprintDTO sprint = sprints.get(id);
+        return sprint == null ? Response.status(404) : Response.json(mapper.writeValueAsBytes(sprint));
+    }
+
+    private static SprintDTO sprint(String id, SprintStatus status, List<IssueDTO> issues) {
+        return new SprintDTO()
+            .setId(id)
+            .setName("MIRRORGATE_SP" + id)
+            .setStatus(status)
+            .setIssues(issues);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.SprintDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.JiraIssueUtils;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.SprintStatus;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Selects the prior sprint of an issue with a long sprint history, comparing
+ * {@link JiraIssueUtils#selectPriorSprint(Iterable)} with the sort it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriorSprintBenchmark {
+
+    @Param({"50", "200"})
+    public int sprints;
+
+    private List<SprintDTO> history;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(7);
+        history = new ArrayList<>(sprints);
+        for (int i = 0; i < sprints; i++) {
+            history.add(new SprintDTO()
+                .setId(String.valueOf(1000 + i))
+                .setStatus(i == sprints - 1 ? SprintStatus.ACTIVE : SprintStatus.CLOSED)
+                .setEndDate(new Date(1_500_000_000_000L + random.nextInt(1000) * 86_400_000L)));
+        }
+    }
+
+    @Benchmark
+    public SprintDTO linearSelection() {
+        return JiraIssueUtils.selectPriorSprint(history);
+    }
+
+    @Benchmark
+    public SprintDTO sortAndTakeFirst() {
+        final List<SprintDTO> sorted = new ArrayList<>(history);
+        sorted.sort(new SprintDateComparator());
+        return sorted.get(0);
+    }
+
+    private static class SprintDateComparator implements Comparator<SprintDTO>, Serializable {
+
+        @Override
+        public int compare(SprintDTO o1, SprintDTO o2) {
+            if (o1.getStatus() != o2.getStatus()) {
+                if (o1.getStatus() == SprintStatus.ACTIVE) {
+                    return -1;
+                } else if (o2.getStatus() == SprintStatus.ACTIVE) {
+                    return 1;
+                } else if (o1.getStatus() == SprintStatus.FUTURE) {
+                    return -1;
+                } else if (o2.getStatus() == SprintStatus.FUTURE) {
+                    return 1;
+                }
+            }
+            return o1.getEndDate() != null ? o1.getEndDate().compareTo(o2.getEndDate()) : 1;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark;
+
+import com.atlassian.jira.rest.client.api.domain.SearchResult;
+import com.atlassian.jira.rest.client.internal.json.SearchResultJsonParser;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.FieldsConfig;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+/**
+ * Compares the size and JRCP parse time of a search page with all fields against one
+ * restricted to {@link FieldsConfig#getSearchFields()}. Page sizes are printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchFieldsBenchmark {
+
+    @Param({"all", "projected"})
+    public String fields;
+
+    @Param({"50"})
+    public int pageSize;
+
+    private String response;
+
+    @Setup
+    public void setup() throws JSONException, IOException {
+        final JSONObject page = JiraSearchFixtures.searchPage(0, pageSize, pageSize, 42);
+        response = "all".equals(fields) ? page.toString() : JiraSearchFixtures.project(page, searchFields()).toString();
+
+        System.out.printf("%n%s fields: %d bytes per page of %d issues%n",
+            fields, response.getBytes(StandardCharsets.UTF_8).length, pageSize);
+    }
+
+    @Benchmark
+    public SearchResult parse() throws JSONException {
+        return new SearchResultJsonParser().parse(new JSONObject(response));
+    }
+
+    static Set<String> searchFields() throws IOException {
+        try (AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext()) {
+            ctx.getEnvironment().getPropertySources()
+                .addFirst(new ResourcePropertySource("classpath:application.properties"));
+            ctx.register(FieldsConfig.class);
+            ctx.refresh();
+            return ctx.getBean(FieldsConfig.SEARCH_FIELDS_BEAN, Set.class);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.ProjectDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.SprintDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.IssuePriority;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.IssueStatus;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.SprintStatus;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Writes a batch of issues to a discarding request body the way {@code SprintService}
+ * used to, serializing the list into a buffer first, and the way it does now, streaming it
+ * as is or gzipped. The bytes each way puts on the wire are printed on setup; run it with
+ * {@code -prof gc} to compare the heap each one needs per batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class SendIssuesBenchmark {
+
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    private List<IssueDTO> issues;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setup() throws IOException {
+        final Random random = new Random(42);
+        final List<SprintDTO> sprints = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            sprints.add(new SprintDTO()
+                .setId(String.valueOf(1900 + i))
+                .setName("MIRRORGATE_SP" + i)
+                .setStatus(i == 9 ? SprintStatus.ACTIVE : SprintStatus.CLOSED)
+                .setStartDate(new Date(1_500_000_000_000L + i * 1_209_600_000L))
+                .setEndDate(new Date(1_501_209_600_000L + i * 1_209_600_000L)));
+        }
+        final ProjectDTO project = new ProjectDTO().setId(10100L).setKey("MG").setName("MirrorGate");
+
+        issues = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            final long id = 100_000L + i;
+            issues.add(new IssueDTO()
+                .setId(id)
+                .setJiraKey("MG-" + id)
+                .setName("As a user I want the board to show the real status of sprint item " + random.nextInt())
+                .setType(i % 5 == 0 ? "Bug" : "Story")
+                .setStatus(IssueStatus.values()[random.nextInt(IssueStatus.values().length)])
+                .setPriority(IssuePriority.MEDIUM)
+                .setEstimate((double) random.nextInt(13))
+                .setParentKey(Collections.singletonList("MG-" + (id % 50)))
+                .setParentId(Collections.singletonList(String.valueOf(id % 50)))
+                .setPiNames(Arrays.asList("PI-1", "PI-2"))
+                .setKeywords(Arrays.asList("mirrorgate", "team-" + random.nextInt(8)))
+                .setSprint(sprints.get(random.nextInt(sprints.size())))
+                .setProject(project)
+                .setUrl(JiraSearchFixtures.JIRA_URL + "/browse/MG-" + id)
+                .setUpdatedDate(new Date(1_600_000_000_000L + random.nextInt(1_000_000)))
+                .setCollectorId("mirrorgate-collectors-jira")
+                .setTeamName("team-" + random.nextInt(8)));
+        }
+
+        writer = Jackson2ObjectMapperBuilder.json().build().writerFor(new TypeReference<List<IssueDTO>>() {});
+
+        final CountingSink plain = new CountingSink();
+        final CountingSink gzipped = new CountingSink();
+        write(plain);
+        writeGzipped(gzipped);
+        System.out.printf("%n%d issues: %d bytes on the wire, %d gzipped%n", batchSize, plain.count, gzipped.count);
+    }
+
+    @Benchmark
+    public long buffered() throws IOException {
+        final CountingSink body = new CountingSink();
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        writer.writeValue(buffer, issues);
+        buffer.writeTo(body);
+        return body.count;
+    }
+
+    @Benchmark
+    public long streaming() throws IOException {
+        return write(new CountingSink());
+    }
+
+    @Benchmark
+    public long streamingGzip() throws IOException {
+        return writeGzipped(new CountingSink());
+    }
+
+    private long write(CountingSink body) throws IOException {
+        writer.writeValue(body, issues);
+        return body.count;
+    }
+
+    private long writeGzipped(CountingSink body) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(body, GZIP_BUFFER_SIZE)) {
+            writer.writeValue(out, issues);
+        }
+        return body.count;
+    }
+
+    private static class CountingSink extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.LongIntHashMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Builds the issue to sprint index and the not found set used to reconcile the sprint
+ * samples, then looks every issue up and removes it again, comparing {@link LongIntHashMap}
+ * with the boxed collections it replaced. The ids are boxed up front, as they come boxed
+ * in the sample DTOs.
+ *
+ * <p>Run it with {@code -prof gc}: {@code gc.alloc.rate.norm} is the memory each structure
+ * takes for {@code issues} ids.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SprintIndexBenchmark {
+
+    private static final int ISSUES_PER_SPRINT = 50;
+
+    @Param({"100000", "1000000"})
+    public int issues;
+
+    private Long[] ids;
+
+    @Setup
+    public void setup() {
+        ids = new Long[issues];
+        for (int i = 0; i < issues; i++) {
+            ids[i] = 100_000L + i * 3L;
+        }
+    }
+
+    @Benchmark
+    public void boxed(Blackhole blackhole) {
+        final Map<Long, Integer> idToSprint = new HashMap<>();
+        final Set<Long> notFound = new HashSet<>();
+        for (int i = 0; i < ids.length; i++) {
+            idToSprint.put(ids[i], i / ISSUES_PER_SPRINT);
+            notFound.add(ids[i]);
+        }
+
+        for (final Long id : ids) {
+            blackhole.consume(idToSprint.get(id));
+            notFound.remove(id);
+        }
+        blackhole.consume(notFound.size());
+    }
+
+    @Benchmark
+    public void primitive(Blackhole blackhole) {
+        final LongIntHashMap idToSprint = new LongIntHashMap(ids.length);
+        final LongIntHashMap notFound = new LongIntHashMap(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            idToSprint.put(ids[i], i / ISSUES_PER_SPRINT);
+            notFound.put(ids[i], 0);
+        }
+
+        for (final Long id : ids) {
+            blackhole.consume(idToSprint.get(id, -1));
+            notFound.remove(id);
+        }
+        blackhole.consume(notFound.size());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.SprintDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.GreenhopperSprintParser;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.SprintStatus;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parses the sprint history of one issue with {@link GreenhopperSprintParser} and with the
+ * regular expression based parser it replaced. Run with {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SprintParserBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int sprints;
+
+    private final GreenhopperSprintParser parser = new GreenhopperSprintParser();
+
+    private List<String> history;
+
+    @Setup
+    public void setup() {
+        history = new ArrayList<>(sprints);
+        for (int i = 0; i < sprints; i++) {
+            history.add(GreenhopperSprintParser.SPRINT_CLASS + "@" + Integer.toHexString(i * 7919) + "["
+                + "id=" + (1000 + i) + ",rapidViewId=879,"
+                + "state=" + (i == sprints - 1 ? "ACTIVE" : "CLOSED") + ","
+                + "name=MIRRORGATE_PI03_2017_SP" + i + ","
+                + "startDate=2017-06-14T11:59:37.474+02:00,"
+                + "endDate=2017-06-27T18:59:00.000+02:00,"
+                + "completeDate=" + (i == sprints - 1 ? "<null>" : "2017-06-28T10:20:49.865+02:00") + ","
+                + "sequence=" + (1000 + i) + "]");
+        }
+    }
+
+    @Benchmark
+    public void greenhopperParser(Blackhole blackhole) {
+        for (String sprint : history) {
+            blackhole.consume(parser.parse(sprint));
+        }
+    }
+
+    @Benchmark
+    public void regexParser(Blackhole blackhole) {
+        for (String sprint : history) {
+            blackhole.consume(parseWithRegex(sprint));
+        }
+    }
+
+    private static SprintDTO parseWithRegex(String data) {
+        if (data == null || !data.startsWith(GreenhopperSprintParser.SPRINT_CLASS)) {
+            return null;
+        }
+
+        Matcher match = Pattern.compile("([^=\\[,]*)=([^,\\]]*)").matcher(data);
+        Map<String, String> fieldsAndValue = new HashMap<>();
+
+        while (match.find()) {
+            fieldsAndValue.put(match.group(1), match.group(2));
+        }
+        return new SprintDTO()
+            .setId(fieldsAndValue.get("id"))
+            .setStatus(parse(fieldsAndValue.get("state"), SprintStatus.class))
+            .setName(fieldsAndValue.get("name"))
+            .setStartDate(parse(fieldsAndValue.get("startDate"), Date.class))
+            .setEndDate(parse(fieldsAndValue.get("endDate"), Date.class))
+            .setCompleteDate(parse(fieldsAndValue.get("completeDate"), Date.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T parse(String s, Class<T> type) {
+        if (s == null || s.equals("<null>")) {
+            return null;
+        } else if (type.isEnum()) {
+            Class<? extends Enum> enumType = (Class<? extends Enum>) type;
+            return (T) Enum.valueOf(enumType, s);
+        } else if (type == Date.class) {
+            return (T) DateTime.parse(s).toDate();
+        }
+        return null;
+    }
+}
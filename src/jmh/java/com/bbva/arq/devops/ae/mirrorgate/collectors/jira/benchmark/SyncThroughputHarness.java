@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.Main;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.MirrorgateJiraStoriesCollectorApplication;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.benchmark.JiraSearchFixtures.Shape;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Runs one full sync of the collector against local stand-ins of Jira and MirrorGate and
+ * reports how long it took, the requests and bytes it exchanged with each of them and the
+ * largest heap in use while it ran.
+ *
+ * <p>Options are given as {@code --name=value}. The harness understands these ones:
+ * <ul>
+ *     <li>{@code issues}: issues in Jira, 10000 by default</li>
+ *     <li>{@code shape}: {@link Shape} of the issues, {@code TYPICAL} by default</li>
+ *     <li>{@code jiraLatencyMillis}: delay of every Jira response, 50 by default</li>
+ *     <li>{@code jiraMaxResults}: largest page Jira returns, 100 by default</li>
+ *     <li>{@code mirrorgateLatencyMillis}: delay of every MirrorGate response, 10 by default</li>
+ *     <li>{@code sampleSprints} and {@code issuesPerSprint}: size of the changing sprint
+ *     sample, 10 sprints of 50 issues by default</li>
+ * </ul>
+ * Any other option is passed to the collector as a property, e.g.
+ * {@code ./gradlew syncBenchmark -PsyncArgs="--issues=50000 --jira.search.streaming=true"}.
+ *
+ * <p>The heap in use is sampled every {@value #HEAP_SAMPLE_MILLIS} ms, so shorter spikes
+ * can be missed. The stubs run in the same JVM, so it includes the pages they generate.
+ */
+public final class SyncThroughputHarness {
+
+    private static final long MB = 1024 * 1024;
+
+    private static final long HEAP_SAMPLE_MILLIS = 10;
+
+    private SyncThroughputHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new LinkedHashMap<>();
+        options.put("issues", "10000");
+        options.put("shape", Shape.TYPICAL.name());
+        options.put("jiraLatencyMillis", "50");
+        options.put("jiraMaxResults", "100");
+        options.put("mirrorgateLatencyMillis", "10");
+        options.put("sampleSprints", "10");
+        options.put("issuesPerSprint", "50");
+
+        final Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("jira.userName", "benchmark");
+        properties.put("jira.password", "benchmark");
+        properties.put("logging.level.com.bbva", "WARN");
+
+        for (String arg : args) {
+            final int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            final String name = arg.substring(2, equals);
+            (options.containsKey(name) ? options : properties).put(name, arg.substring(equals + 1));
+        }
+
+        final int issues = Integer.parseInt(options.get("issues"));
+        try (JiraStub jira = new JiraStub(issues,
+                 Integer.parseInt(options.get("jiraMaxResults")),
+                 Shape.valueOf(options.get("shape")),
+                 Long.parseLong(options.get("jiraLatencyMillis")));
+             MirrorGateStub mirrorGate = new MirrorGateStub(issues,
+                 Integer.parseInt(options.get("sampleSprints")),
+                 Integer.parseInt(options.get("issuesPerSprint")),
+                 Long.parseLong(options.get("mirrorgateLatencyMillis")))) {
+
+            jira.start();
+            mirrorGate.start();
+            properties.put("jira.url", jira.url());
+            properties.put("mirrorgate.url", mirrorGate.url());
+
+            try (ConfigurableApplicationContext ctx =
+                     new SpringApplicationBuilder(MirrorgateJiraStoriesCollectorApplication.class)
+                         .web(WebApplicationType.NONE)
+                         .run(toArgs(properties))) {
+
+                final Main main = ctx.getBean(Main.class);
+                jira.reset();
+                mirrorGate.reset();
+                System.gc();
+
+                final double seconds;
+                final long maxHeap;
+                try (HeapSampler heap = new HeapSampler()) {
+                    final long start = System.nanoTime();
+                    main.run();
+                    seconds = (System.nanoTime() - start) / 1e9;
+                    maxHeap = heap.max();
+                }
+
+                report(options, seconds, maxHeap, jira, mirrorGate);
+            }
+        }
+    }
+
+    private static String[] toArgs(Map<String, String> properties) {
+        return properties.entrySet().stream()
+            .map((e) -> "--" + e.getKey() + "=" + e.getValue())
+            .toArray(String[]::new);
+    }
+
+    private static void report(Map<String, String> options, double seconds, long maxHeap, JiraStub jira,
+                               MirrorGateStub mirrorGate) {
+        System.out.println();
+        System.out.println("Options:     " + options);
+        System.out.printf("Elapsed:     %.1f s%n", seconds);
+        System.out.printf("Throughput:  %.0f issues/s read from Jira, %.0f issues/s sent to MirrorGate%n",
+            jira.issuesSent() / seconds, mirrorGate.issuesReceived() / seconds);
+        System.out.printf("Jira:        %d requests, %d issues, %.1f MB received, %.1f MB sent%n",
+            jira.requests(), jira.issuesSent(), (double) jira.bytesSent() / MB, (double) jira.bytesReceived() / MB);
+        System.out.printf("MirrorGate:  %d requests, %d issues, %d deletions, %.1f MB received, %.1f MB sent%n",
+            mirrorGate.requests(), mirrorGate.issuesReceived(), mirrorGate.issuesDeleted(),
+            (double) mirrorGate.bytesSent() / MB, (double) mirrorGate.bytesReceived() / MB);
+        System.out.printf("Max heap:    %d MB used at once, sampled every %d ms%n", maxHeap / MB, HEAP_SAMPLE_MILLIS);
+    }
+
+    /**
+     * Tracks the largest total heap in use at any of its samples. The peaks of the single
+     * heap pools cannot be added up instead, since each pool peaks at a different time.
+     */
+    private static final class HeapSampler implements AutoCloseable {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final AtomicLong max = new AtomicLong();
+        private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor((r) -> {
+            final Thread thread = new Thread(r, "heap-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        HeapSampler() {
+            sampler.scheduleAtFixedRate(this::sample, 0, HEAP_SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        private void sample() {
+            max.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+        }
+
+        long max() {
+            sample();
+            return max.get();
+        }
+
+        @Override
+        public void close() {
+            sampler.shutdownNow();
+        }
+    }
+}
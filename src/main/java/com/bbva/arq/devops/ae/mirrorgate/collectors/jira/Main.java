@@ -16,22 +16,36 @@
 
 package com.bbva.arq.devops.ae.mirrorgate.collectors.jira;
 
-import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.api.CollectorService;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.api.SprintService;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.Config;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.SprintDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.CollectorStatusService;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.IssuesService;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.BufferedPageable;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.IssueDigestCache;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.LongIntHashMap;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.OutcomeTimer;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.Pageable;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 
@@ -40,16 +54,45 @@ public class Main implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(Main.class);
 
+    private static final int SPRINT_LOCK_STRIPES = 64;
+
     @Autowired
     private SprintService sprintApi;
 
     @Autowired
-    private CollectorService collectorApi;
+    private CollectorStatusService collectorStatus;
 
     @Autowired
     private IssuesService service;
 
-    public void updateIssuesOnDemand(final List<IssueDTO> issues) {
+    @Autowired
+    private IssueDigestCache digestCache;
+
+    @Autowired
+    @Qualifier(Config.JIRA_READER_EXECUTOR)
+    private ExecutorService readerExecutor;
+
+    @Autowired
+    @Qualifier(Config.SPRINT_SYNC_EXECUTOR)
+    private ExecutorService sprintSyncExecutor;
+
+    @Value("${jira.pipeline.bufferedPages:4}")
+    private int bufferedPages;
+
+    @Value("${mirrorgate.send.batchSize:0}")
+    private int sendBatchSize;
+
+    //Only one sync runs at a time, overlapping triggers are skipped instead of queued
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    //Updates of the same sprint are serialized, different sprints rarely share a stripe
+    private final Lock[] sprintLocks = Stream.generate(ReentrantLock::new)
+        .limit(SPRINT_LOCK_STRIPES).toArray(Lock[]::new);
+
+    /**
+     * Sends the issues received on demand, timing each MirrorGate request with the given timer.
+     */
+    public void updateIssuesOnDemand(final List<IssueDTO> issues, final OutcomeTimer sendTimer) {
         iterateAndSave(new Pageable<IssueDTO>() {
             boolean returned = false;
 
@@ -59,104 +102,244 @@ public class Main implements Runnable {
                 returned = true;
                 return value;
             }
-        }, false);
+        }, false, (batch) -> sendTimer.run(() -> sprintApi.sendIssues(batch)));
     }
 
     public void deleteIssue(final Long id) {
         LOG.info("-> Deleting: {}", id);
         sprintApi.deleteIssue(id);
+        digestCache.remove(id);
     }
 
     private void iterateAndSave(
         final Pageable<IssueDTO> pagedIssues,
-        final boolean updateCollectorsDate
+        final boolean updateCollectorsDate,
+        final Consumer<List<IssueDTO>> sender
     ) {
+        final PendingIssues pending = new PendingIssues(updateCollectorsDate, sender);
         List<IssueDTO> issues;
 
-        while ((issues = pagedIssues.nextPage()).size() > 0) {
-            LOG.info("-> Saving: {}", issues);
-            sprintApi.sendIssues(issues);
+        try {
+            while ((issues = pagedIssues.nextPage()).size() > 0) {
+                pending.add(issues);
+                if (pending.size() == 0 || pending.size() >= sendBatchSize) {
+                    pending.send();
+                }
+            }
+            pending.send();
+        } finally {
             if (updateCollectorsDate) {
-                collectorApi.update(issues.get(issues.size() - 1).getUpdatedDate());
+                collectorStatus.flush();
             }
         }
     }
 
+    /**
+     * Changed issues of the pages read that were not sent yet. They are sent in batches of
+     * {@code mirrorgate.send.batchSize}, or as they come when it is not set. The digests of
+     * each batch are remembered once it was sent, but the pages are only checkpointed once
+     * all their issues were sent.
+     */
+    private class PendingIssues {
+
+        private final boolean updateCollectorsDate;
+        private final Consumer<List<IssueDTO>> sender;
+        private final List<IssueDTO> issues = new ArrayList<>();
+        private final Map<Long, Long> digests = new HashMap<>();
+        private final List<List<IssueDTO>> pages = new ArrayList<>();
+
+        PendingIssues(boolean updateCollectorsDate, Consumer<List<IssueDTO>> sender) {
+            this.updateCollectorsDate = updateCollectorsDate;
+            this.sender = sender;
+        }
+
+        void add(List<IssueDTO> page) {
+            final Map<Long, Long> changed = digestCache.changed(page);
+            if (changed.size() < page.size()) {
+                LOG.info("-> Skipping {} unchanged issues", page.size() - changed.size());
+            }
+
+            page.stream().filter((i) -> changed.containsKey(i.getId())).forEach(issues::add);
+            digests.putAll(changed);
+            pages.add(page);
+        }
+
+        int size() {
+            return issues.size();
+        }
+
+        void send() {
+            final int batchSize = sendBatchSize > 0 ? sendBatchSize : Math.max(1, issues.size());
+            for (int from = 0; from < issues.size(); from += batchSize) {
+                final List<IssueDTO> batch = issues.subList(from, Math.min(issues.size(), from + batchSize));
+                LOG.info("-> Saving {} issues", batch.size());
+                LOG.debug("-> Saving: {}", batch);
+                sender.accept(batch);
+
+                final Map<Long, Long> sent = new HashMap<>();
+                batch.forEach((i) -> sent.put(i.getId(), digests.get(i.getId())));
+                digestCache.sent(sent);
+            }
+
+            if (updateCollectorsDate) {
+                pages.forEach(collectorStatus::update);
+            }
+
+            issues.clear();
+            digests.clear();
+            pages.clear();
+        }
+    }
+
+    /**
+     * Reads the next Jira pages while the current one is being saved. Pages are still saved
+     * one after the other and the collector date is only moved after its page was sent, so
+     * the checkpoint keeps growing monotonically even if the process dies in between.
+     */
+    private void pipeAndSave(
+        final Pageable<IssueDTO> pagedIssues,
+        final boolean updateCollectorsDate
+    ) {
+        if (bufferedPages <= 0) {
+            iterateAndSave(pagedIssues, updateCollectorsDate, sprintApi::sendIssues);
+            return;
+        }
+
+        try (BufferedPageable<IssueDTO> buffered =
+                 new BufferedPageable<>(pagedIssues, bufferedPages, readerExecutor)) {
+            iterateAndSave(buffered, updateCollectorsDate, sprintApi::sendIssues);
+        }
+    }
+
     private Pageable<IssueDTO> getIssuesByIdAndDeleteNotPresent(final List<Long> ids) {
-        final Set<Long> idSet = new HashSet<>(ids);
+        final LongIntHashMap notFound = new LongIntHashMap(ids.size());
+        ids.forEach((id) -> notFound.put(id, 0));
         final Pageable<IssueDTO> wrapped = service.getById(ids);
         return () -> {
             List<IssueDTO> result = wrapped.nextPage();
             for (IssueDTO issueDTO : result) {
-                idSet.remove(issueDTO.getId());
+                notFound.remove(issueDTO.getId());
             }
             if (result.size() == 0) {
-                idSet.forEach(this::deleteIssue);
+                notFound.forEachKey(this::deleteIssue);
             }
             return result;
         };
     }
 
-    private List<SprintDTO> getSprintsThatNeedUpdating() {
+    /**
+     * Returns the distinct ids of the sprints whose issues moved, in the order they were found.
+     */
+    private Set<String> getSprintsThatNeedUpdating() {
         final List<SprintDTO> sprints = sprintApi.getSprintSamples();
 
-        final List<Long> ids = new ArrayList<>();
-        final Map<Long, SprintDTO> idToSprint = new HashMap<>(ids.size() * 2);
+        final int issueCount = sprints.stream().mapToInt((s) -> s.getIssues().size()).sum();
+        final List<Long> ids = new ArrayList<>(issueCount);
+        //Issue id to the index of its sample sprint
+        final LongIntHashMap idToSprint = new LongIntHashMap(issueCount);
 
-        sprints.forEach((s) -> {
-            for (IssueDTO issue : s.getIssues()) {
-                idToSprint.put(issue.getId(), s);
+        for (int i = 0; i < sprints.size(); i++) {
+            for (IssueDTO issue : sprints.get(i).getIssues()) {
+                idToSprint.put(issue.getId(), i);
                 ids.add(issue.getId());
             }
-        });
+        }
 
         final Pageable<IssueDTO> samples = getIssuesByIdAndDeleteNotPresent(ids);
 
-        final List<SprintDTO> toUpdate = new ArrayList<>();
+        final Set<String> toUpdate = new LinkedHashSet<>();
+        int requested = 0;
         List<IssueDTO> issues;
         while ((issues = samples.nextPage()).size() > 0) {
-            LOG.info("-> Checking {}", issues.get(0));
-            issues.forEach((i) -> {
+            LOG.debug("-> Checking {}", issues.get(0));
+            for (IssueDTO i : issues) {
                 final SprintDTO current = i.getSprint();
-                final SprintDTO newSprint = idToSprint.get(i.getId());
+                final SprintDTO newSprint = sprints.get(idToSprint.get(i.getId(), -1));
                 if (current == null) {
                     LOG.info("-> New Sprint {} association for issue {}",
                         newSprint.getName(), i.getId());
-                    toUpdate.add(newSprint);
+                    toUpdate.add(newSprint.getId());
+                    requested++;
                 } else if (!current.getId().equals(newSprint.getId())) {
                     LOG.info("-> Sprint changed {} for issue {}", current.getName(), i.getId());
-                    toUpdate.add(current);
-                    toUpdate.add(newSprint);
+                    toUpdate.add(current.getId());
+                    toUpdate.add(newSprint.getId());
+                    requested += 2;
                 }
-            });
+            }
         }
 
-        final List<String> springIdsToUpdate = toUpdate.stream()
-            .map(SprintDTO::getId).collect(Collectors.toList());
-        LOG.info("-> Needs updating: {}", springIdsToUpdate);
+        LOG.info("-> Needs updating: {} ({} repeated sprint updates avoided)", toUpdate, requested - toUpdate.size());
         return toUpdate;
     }
 
     public void updateSprint(final String id) {
-        final SprintDTO sprint = sprintApi.getSprint(id);
-        if (sprint != null && sprint.getIssues() != null) {
-            final List<Long> ids = sprint.getIssues().stream()
-                .map(IssueDTO::getId).collect(Collectors.toList());
-            iterateAndSave(getIssuesByIdAndDeleteNotPresent(ids), false);
-        } else {
-            LOG.warn("-> Could not update the sprint {}", id);
+        final Lock lock = sprintLocks[Math.floorMod(id.hashCode(), sprintLocks.length)];
+        lock.lock();
+        try {
+            final SprintDTO sprint = sprintApi.getSprint(id);
+            if (sprint != null && sprint.getIssues() != null) {
+                final List<Long> ids = sprint.getIssues().stream()
+                    .map(IssueDTO::getId).collect(Collectors.toList());
+                //MirrorGate is out of sync with Jira for this sprint, so resend even unchanged issues
+                ids.forEach(digestCache::remove);
+                pipeAndSave(getIssuesByIdAndDeleteNotPresent(ids), false);
+            } else {
+                LOG.warn("-> Could not update the sprint {}", id);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
-    public synchronized void run() {
+    /**
+     * Updates the given sprints in parallel on the sprint sync executor, waiting for all of
+     * them. The first failure, if any, is rethrown once every update has finished.
+     */
+    private void updateSprints(final Set<String> sprintIds) {
+        final List<Future<?>> updates = sprintIds.stream()
+            .map((id) -> sprintSyncExecutor.submit(() -> updateSprint(id)))
+            .collect(Collectors.toList());
 
-        LOG.info("Starting");
-        iterateAndSave(service.getRecentIssues(), true);
+        RuntimeException failure = null;
+        for (final Future<?> update : updates) {
+            try {
+                update.get();
+            } catch (InterruptedException e) {
+                updates.forEach((u) -> u.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while updating sprints", e);
+            } catch (ExecutionException e) {
+                LOG.error("Error updating sprint", e.getCause());
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause()
+                        : new IllegalStateException(e.getCause());
+                }
+            }
+        }
 
-        for (final SprintDTO s : getSprintsThatNeedUpdating()) {
-            updateSprint(s.getId());
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public void run() {
+        if (!syncLock.tryLock()) {
+            LOG.warn("Skipping, the previous execution is still running");
+            return;
         }
 
-        LOG.info("Ending");
+        try {
+            LOG.info("Starting");
+            pipeAndSave(service.getRecentIssues(), true);
+
+            updateSprints(getSprintsThatNeedUpdating());
+            digestCache.save();
+
+            LOG.info("Ending");
+        } finally {
+            syncLock.unlock();
+        }
     }
 }
@@ -17,6 +17,9 @@
 package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.api;
 
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.Config;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.OutcomeTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import java.util.Date;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,7 +38,7 @@ import org.springframework.web.util.UriComponentsBuilder;
  * Created by alfonso on 26/05/17.
  */
 @Component
-public class CollectorService {
+public class CollectorService implements MeterBinder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CollectorService.class);
 
@@ -51,6 +54,15 @@ public class CollectorService {
     @Qualifier(Config.MIRRORGATE_REST_TEMPLATE)
     private RestTemplate restTemplate;
 
+    private final OutcomeTimer updateTimer = SprintService.requestTimer("updateCollector");
+    private final OutcomeTimer getUpdatedDateTimer = SprintService.requestTimer("getCollector");
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        updateTimer.bindTo(registry);
+        getUpdatedDateTimer.bindTo(registry);
+    }
+
     public void update(final Date date) {
         final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
         params.set("collectorId", appName);
@@ -58,10 +70,11 @@ public class CollectorService {
         final UriComponentsBuilder builder = UriComponentsBuilder
             .fromHttpUrl(mirrorGateUrl + MIRRORGATE_COLLECTOR_ENDPOINT).queryParams(params);
 
-        restTemplate.put(builder.build().toUriString(), date, appName);
+        updateTimer.run(() -> restTemplate.put(builder.build().toUriString(), date, appName));
     }
 
     public Date getUpdatedDate() {
+        final long start = getUpdatedDateTimer.start();
         try {
             final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
             params.set("collectorId", appName);
@@ -69,15 +82,22 @@ public class CollectorService {
             final UriComponentsBuilder builder = UriComponentsBuilder
                 .fromHttpUrl(mirrorGateUrl + MIRRORGATE_COLLECTOR_ENDPOINT).queryParams(params);
 
-            return restTemplate.getForObject(builder.build().toUriString(), Date.class, appName);
+            final Date date = restTemplate.getForObject(builder.build().toUriString(), Date.class, appName);
+            getUpdatedDateTimer.stop(start, OutcomeTimer.SUCCESS);
+            return date;
         } catch (final HttpClientErrorException e) {
             if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                getUpdatedDateTimer.stop(start, OutcomeTimer.NOT_FOUND);
                 LOGGER.info("Not previous execution date found. "
                     + "Running from the very beginning so this could take a while");
             } else {
+                getUpdatedDateTimer.stop(start, OutcomeTimer.ERROR);
                 LOGGER.error("Error requesting previous collector status", e);
                 throw e;
             }
+        } catch (final RuntimeException e) {
+            getUpdatedDateTimer.stop(start, OutcomeTimer.ERROR);
+            throw e;
         }
         return null;
     }
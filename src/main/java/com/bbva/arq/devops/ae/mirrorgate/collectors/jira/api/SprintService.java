@@ -19,25 +19,40 @@ package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.api;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.Config;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.SprintDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.OutcomeTimer;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 @Component
-public class SprintService {
+public class SprintService implements MeterBinder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SprintService.class);
 
@@ -52,11 +67,42 @@ public class SprintService {
     private static final String MIRRORGATE_GET_SPRINT_SAMPLE_ENDPOINT = "/api/sprints/changing-sample";
     private static final String MIRRORGATE_GET_SPRINT_ISSUES_ENDPOINT = "/api/sprints/{id}";
 
+    private static final TypeReference<List<IssueDTO>> ISSUE_LIST = new TypeReference<List<IssueDTO>>() {};
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    @Value("${mirrorgate.send.gzip:false}")
+    private boolean gzip;
+
     @Autowired
     @Qualifier(Config.MIRRORGATE_REST_TEMPLATE)
     private RestTemplate restTemplate;
 
-    public ResponseEntity<List> sendIssues(final List<IssueDTO> issues) {
+    private ObjectWriter issuesWriter;
+
+    private final OutcomeTimer sendIssuesTimer = requestTimer("sendIssues");
+    private final OutcomeTimer deleteIssueTimer = requestTimer("deleteIssue");
+    private final OutcomeTimer getSprintSamplesTimer = requestTimer("getSprintSamples");
+    private final OutcomeTimer getSprintTimer = requestTimer("getSprint");
+
+    static OutcomeTimer requestTimer(String operation) {
+        return new OutcomeTimer("mirrorgate.requests", "Requests made to MirrorGate", "operation", operation);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        sendIssuesTimer.bindTo(registry);
+        deleteIssueTimer.bindTo(registry);
+        getSprintSamplesTimer.bindTo(registry);
+        getSprintTimer.bindTo(registry);
+    }
+
+    /**
+     * Posts the issues writing their JSON straight into the request body, gzipped when
+     * {@code mirrorgate.send.gzip} is set, instead of serializing the whole list first.
+     * The body is only streamed when the template has no interceptors, so the MirrorGate
+     * credentials must be sent by its HTTP client instead.
+     */
+    public void sendIssues(final List<IssueDTO> issues) {
         final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
         params.set("collectorId", appName);
 
@@ -64,7 +110,37 @@ public class SprintService {
             .fromHttpUrl(mirrorGateUrl + MIRRORGATE_SEND_ISSUES_ENDPOINT)
             .queryParams(params);
 
-        return restTemplate.postForEntity(builder.build().toUriString(), issues, List.class);
+        sendIssuesTimer.run(() -> restTemplate.execute(builder.build().toUriString(), HttpMethod.POST, (request) -> {
+            request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            if (gzip) {
+                request.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            if (request instanceof StreamingHttpOutputMessage) {
+                ((StreamingHttpOutputMessage) request).setBody((body) -> write(body, issues));
+            } else {
+                write(request.getBody(), issues);
+            }
+        }, null));
+    }
+
+    private void write(final OutputStream body, final List<IssueDTO> issues) throws IOException {
+        final OutputStream nonClosing = StreamUtils.nonClosing(body);
+        try (OutputStream out = gzip ? new GZIPOutputStream(nonClosing, GZIP_BUFFER_SIZE) : nonClosing) {
+            issuesWriter.writeValue(out, issues);
+        }
+    }
+
+    /**
+     * Uses the mapper of the JSON converter the template would have written the issues with.
+     */
+    @PostConstruct
+    public void init() {
+        issuesWriter = restTemplate.getMessageConverters().stream()
+            .filter(MappingJackson2HttpMessageConverter.class::isInstance)
+            .map((c) -> ((MappingJackson2HttpMessageConverter) c).getObjectMapper())
+            .findFirst()
+            .orElseGet(ObjectMapper::new)
+            .writerFor(ISSUE_LIST);
     }
 
     public void deleteIssue(final Long issueId) {
@@ -74,15 +150,22 @@ public class SprintService {
         final UriComponentsBuilder builder = UriComponentsBuilder
             .fromHttpUrl(mirrorGateUrl + MIRRORGATE_DELETE_ISSUE_ENDPOINT).queryParams(params);
 
+        final long start = deleteIssueTimer.start();
         try {
             restTemplate.delete(builder.build().toUriString(), issueId);
+            deleteIssueTimer.stop(start, OutcomeTimer.SUCCESS);
         } catch (final HttpClientErrorException e) {
             if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                deleteIssueTimer.stop(start, OutcomeTimer.NOT_FOUND);
                 LOGGER.warn("Issue {} already deleted", issueId);
             } else {
+                deleteIssueTimer.stop(start, OutcomeTimer.ERROR);
                 LOGGER.error("Error trying to delete issue {}", issueId, e);
                 throw e;
             }
+        } catch (final RuntimeException e) {
+            deleteIssueTimer.stop(start, OutcomeTimer.ERROR);
+            throw e;
         }
 
     }
@@ -97,12 +180,14 @@ public class SprintService {
 
         return Arrays.asList(
             Objects.requireNonNull(
-                restTemplate.getForObject(builder.build().toUriString(), SprintDTO[].class)
+                getSprintSamplesTimer.call(
+                    () -> restTemplate.getForObject(builder.build().toUriString(), SprintDTO[].class))
             )
         );
     }
 
     public SprintDTO getSprint(final String name) {
+        final long start = getSprintTimer.start();
         try {
             final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
             params.set("collectorId", appName);
@@ -111,14 +196,22 @@ public class SprintService {
                 .fromHttpUrl(mirrorGateUrl + MIRRORGATE_GET_SPRINT_ISSUES_ENDPOINT)
                 .queryParams(params);
 
-            return restTemplate.getForObject(builder.build().toUriString(), SprintDTO.class, name);
+            final SprintDTO sprint =
+                restTemplate.getForObject(builder.build().toUriString(), SprintDTO.class, name);
+            getSprintTimer.stop(start, OutcomeTimer.SUCCESS);
+            return sprint;
         } catch (HttpClientErrorException e) {
             if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                getSprintTimer.stop(start, OutcomeTimer.NOT_FOUND);
                 LOGGER.warn("Sprint {} does not exist", name);
             } else {
+                getSprintTimer.stop(start, OutcomeTimer.ERROR);
                 LOGGER.error("Error getting sprint {}", name, e);
                 throw e;
             }
+        } catch (RuntimeException e) {
+            getSprintTimer.stop(start, OutcomeTimer.ERROR);
+            throw e;
         }
         return null;
     }
@@ -19,24 +19,47 @@ package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config;
 import com.atlassian.jira.rest.client.api.JiraRestClient;
 import com.atlassian.jira.rest.client.api.MetadataRestClient;
 import com.atlassian.jira.rest.client.api.SearchRestClient;
+import com.atlassian.jira.rest.client.api.domain.Field;
 import com.atlassian.jira.rest.client.internal.async.AsynchronousJiraRestClientFactory;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.IssueStatus;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.IssueType;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.MetadataCache;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeader;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.client.support.BasicAuthenticationInterceptor;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
@@ -49,6 +72,14 @@ public class Config {
     public static final String JIRA_STATUS_MAPPING = "JiraStatusMapping";
     public static final String JIRA_TYPES_MAPPING = "JiraTypeMapping";
     public static final String JIRA_TYPES = "JiraTypes";
+    public static final String JIRA_READER_EXECUTOR = "JiraReaderExecutor";
+    public static final String WEBHOOK_EXECUTOR = "WebHookExecutor";
+    public static final String WEBHOOK_FLUSH_EXECUTOR = "WebHookFlushExecutor";
+    public static final String SPRINT_SYNC_EXECUTOR = "SprintSyncExecutor";
+    public static final String MIRRORGATE_CONNECTIONS = "MirrorGateConnections";
+    public static final String JIRA_CONNECTIONS = "JiraConnections";
+    public static final String METADATA_REFRESH_EXECUTOR = "MetadataRefreshExecutor";
+    public static final String JIRA_FIELDS = "JiraFields";
 
     @Value("${jira.url}")
     private String jiraUrl;
@@ -68,6 +99,36 @@ public class Config {
     @Value("${jira.timezone:}")
     private String jiraTimeZone;
 
+    @Value("${jira.sprintSync.parallelism:4}")
+    private int sprintSyncParallelism;
+
+    @Value("${webhook.workers:1}")
+    private int webHookWorkers;
+
+    @Value("${webhook.queueCapacity:1000}")
+    private int webHookQueueCapacity;
+
+    @Value("${http.client.maxConnections:50}")
+    private int httpMaxConnections;
+
+    @Value("${http.client.maxConnectionsPerRoute:10}")
+    private int httpMaxConnectionsPerRoute;
+
+    @Value("${http.client.connectTimeoutMillis:10000}")
+    private int httpConnectTimeoutMillis;
+
+    @Value("${http.client.readTimeoutMillis:60000}")
+    private int httpReadTimeoutMillis;
+
+    @Value("${http.client.keepAliveMillis:30000}")
+    private long httpKeepAliveMillis;
+
+    @Value("${jira.metadata.ttlMillis:600000}")
+    private long metadataTtlMillis;
+
+    @Value("${jira.metadata.minRefreshMillis:30000}")
+    private long metadataMinRefreshMillis;
+
     @Value("#{'${jira.types.mappings.bug}'.split(',')}")
     private List<String> bugTypes;
 
@@ -125,23 +186,51 @@ public class Config {
         return this.getJiraRestClient().getMetadataClient();
     }
 
+    @Bean(name = MIRRORGATE_CONNECTIONS, destroyMethod = "shutdown")
+    public PoolingHttpClientConnectionManager getMirrorGateConnections() {
+        return newConnectionManager();
+    }
+
+    @Bean(name = JIRA_CONNECTIONS, destroyMethod = "shutdown")
+    public PoolingHttpClientConnectionManager getJiraConnections() {
+        return newConnectionManager();
+    }
+
+    @Bean
+    public MeterBinder getConnectionPoolMetrics() {
+        return (registry) -> {
+            new PoolingHttpClientConnectionManagerMetricsBinder(getMirrorGateConnections(), "mirrorgate")
+                .bindTo(registry);
+            new PoolingHttpClientConnectionManagerMetricsBinder(getJiraConnections(), "jira")
+                .bindTo(registry);
+        };
+    }
+
     @Bean(MIRRORGATE_REST_TEMPLATE)
     public RestTemplate getRestTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
+        //Request bodies are streamed, so credentials are sent by the client itself:
+        //template interceptors would buffer the bodies again
+        List<Header> headers = new ArrayList<>();
+        if (!StringUtils.isBlank(mirrorGateUserName) && !StringUtils.isBlank(mirrorGatePassword)) {
+            headers.add(new BasicHeader(HttpHeaders.AUTHORIZATION,
+                "Basic " + HttpHeaders.encodeBasicAuth(mirrorGateUserName, mirrorGatePassword, null)));
+        }
+
+        HttpComponentsClientHttpRequestFactory requestFactory =
+            new HttpComponentsClientHttpRequestFactory(newHttpClient(getMirrorGateConnections(), headers));
+        requestFactory.setBufferRequestBody(false);
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
         MappingJackson2HttpMessageConverter jsonHttpMessageConverter =
             new MappingJackson2HttpMessageConverter();
         restTemplate.getMessageConverters().add(jsonHttpMessageConverter);
-        if (!StringUtils.isBlank(mirrorGateUserName) && !StringUtils.isBlank(mirrorGatePassword)) {
-            restTemplate.getInterceptors().add(
-                new BasicAuthenticationInterceptor(mirrorGateUserName, mirrorGatePassword));
-        }
 
         return restTemplate;
     }
 
     @Bean(JIRA_REST_TEMPLATE)
     public RestTemplate getJiraRestTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = new RestTemplate(
+            new HttpComponentsClientHttpRequestFactory(newHttpClient(getJiraConnections(), new ArrayList<>())));
         MappingJackson2HttpMessageConverter jsonHttpMessageConverter
             = new MappingJackson2HttpMessageConverter();
         restTemplate.getMessageConverters().add(jsonHttpMessageConverter);
@@ -150,6 +239,35 @@ public class Config {
         return restTemplate;
     }
 
+    private PoolingHttpClientConnectionManager newConnectionManager() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(Math.max(1, httpMaxConnections));
+        connectionManager.setDefaultMaxPerRoute(Math.max(1, httpMaxConnectionsPerRoute));
+        return connectionManager;
+    }
+
+    private CloseableHttpClient newHttpClient(PoolingHttpClientConnectionManager connectionManager,
+                                              List<Header> defaultHeaders) {
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(httpConnectTimeoutMillis)
+            .setSocketTimeout(httpReadTimeoutMillis)
+            .setConnectionRequestTimeout(httpConnectTimeoutMillis)
+            .build();
+
+        return HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setConnectionManagerShared(true)
+            .setDefaultRequestConfig(requestConfig)
+            .setDefaultHeaders(defaultHeaders)
+            //Connections are kept as long as the server allows, or keepAliveMillis if it does not say
+            .setKeepAliveStrategy((response, context) -> {
+                long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                return keepAlive > 0 ? keepAlive : httpKeepAliveMillis;
+            })
+            .evictIdleConnections(httpKeepAliveMillis, TimeUnit.MILLISECONDS)
+            .build();
+    }
+
     @Bean(JIRA_TYPES_MAPPING)
     public Map<String, IssueType> getJiraTypeMapping() {
         Map<String, IssueType> issueTypeDefaults = new HashMap<>(10);
@@ -191,6 +309,64 @@ public class Config {
 
     }
 
+    @Bean(name = JIRA_READER_EXECUTOR, destroyMethod = "shutdownNow")
+    public ExecutorService getJiraReaderExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("jira-reader-");
+        threadFactory.setDaemon(true);
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+
+    @Bean(name = SPRINT_SYNC_EXECUTOR, destroyMethod = "shutdownNow")
+    public ExecutorService getSprintSyncExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("sprint-sync-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(Math.max(1, sprintSyncParallelism), threadFactory);
+    }
+
+    @Bean(name = WEBHOOK_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService getWebHookExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("webhook-");
+        threadFactory.setDaemon(true);
+        int workers = Math.max(1, webHookWorkers);
+        //Events beyond the queue capacity are rejected so that Jira retries them later
+        return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, webHookQueueCapacity)), threadFactory,
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Bean(name = WEBHOOK_FLUSH_EXECUTOR, destroyMethod = "shutdownNow")
+    public ScheduledExecutorService getWebHookFlushExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("webhook-flush-");
+        threadFactory.setDaemon(true);
+        return Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @Bean(name = METADATA_REFRESH_EXECUTOR, destroyMethod = "shutdownNow")
+    public ScheduledExecutorService getMetadataRefreshExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("jira-metadata-");
+        threadFactory.setDaemon(true);
+        return Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @Bean(JIRA_FIELDS)
+    public MetadataCache<List<Field>> getJiraFields() {
+        return new MetadataCache<>("fields", () -> {
+            try {
+                List<Field> fields = new ArrayList<>();
+                getMetadataRestClient().getFields().get().forEach(fields::add);
+                if (fields.isEmpty()) {
+                    throw new IllegalStateException("Jira returned no fields");
+                }
+                return Collections.unmodifiableList(fields);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while loading the Jira fields", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error loading the Jira fields", e.getCause());
+            }
+        }, metadataTtlMillis, metadataMinRefreshMillis, getMetadataRefreshExecutor());
+    }
+
     @Bean
     public TimeZone getTimeZone() {
         TimeZone tz = TimeZone.getDefault();
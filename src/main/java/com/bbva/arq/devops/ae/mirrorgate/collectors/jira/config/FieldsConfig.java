@@ -18,9 +18,12 @@ package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config;
 
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.JiraIssueFields;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -35,6 +38,12 @@ public class FieldsConfig {
 
     public static final String KEYWORDS_FIELD_BEAN = "KeywordsFieldsList";
     public static final String JIRA_FIELDS_BEAN = "JiraFieldIds";
+    public static final String SEARCH_FIELDS_BEAN = "JiraSearchFields";
+
+    //Fields read when mapping an issue, including the ones JRCP requires to parse it
+    private static final List<String> ISSUE_FIELDS = Arrays.asList(
+        "summary", "issuetype", "status", "priority", "project", "created", "updated", "issuelinks"
+    );
 
     @Value("${jira.fields.storyPoints}")
     private String storyPointsField;
@@ -72,4 +81,18 @@ public class FieldsConfig {
                 .collect(Collectors.toList());
     }
 
+    @Bean(SEARCH_FIELDS_BEAN)
+    public Set<String> getSearchFields() {
+        Set<String> fields = new LinkedHashSet<>(ISSUE_FIELDS);
+
+        getFieldIds().forEach((field, id) -> {
+            if (field != JiraIssueFields.KEYWORDS && id != null && id.trim().length() > 0) {
+                fields.add(id.trim());
+            }
+        });
+        fields.addAll(getKeywordsFields());
+
+        return Collections.unmodifiableSet(fields);
+    }
+
 }
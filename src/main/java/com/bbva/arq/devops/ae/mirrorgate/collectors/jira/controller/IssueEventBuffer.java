@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.controller;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.Main;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.Config;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.OutcomeTimer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Coalesces the issues received through the webhook so that bursts of events, like the
+ * ones fired by a bulk edit, end up in a few MirrorGate requests.
+ *
+ * <p>Issues are keyed by id and the last event received for an issue wins. The buffer is
+ * sent as one batch once it holds {@code maxIssues} issues or {@code maxDelayMillis} after
+ * the first issue was buffered, whatever happens first.
+ */
+@Component
+public class IssueEventBuffer implements MeterBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IssueEventBuffer.class);
+
+    private final Main main;
+    private final int maxIssues;
+    private final long maxDelayMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<Long, IssueDTO> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    //Held while a batch is sent, so a delete can never be overtaken by a buffered update
+    private final Object sendLock = new Object();
+
+    private final LongAdder events = new LongAdder();
+    private final OutcomeTimer posts = new OutcomeTimer("webhook.issue.posts",
+        "MirrorGate requests sent for the issues received through the webhook");
+
+    @Autowired
+    public IssueEventBuffer(Main main,
+                            @Qualifier(Config.WEBHOOK_FLUSH_EXECUTOR) ScheduledExecutorService scheduler,
+                            @Value("${webhook.buffer.maxIssues:100}") int maxIssues,
+                            @Value("${webhook.buffer.maxDelayMillis:2000}") long maxDelayMillis) {
+        this.main = main;
+        this.scheduler = scheduler;
+        this.maxIssues = Math.max(1, maxIssues);
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("webhook.issue.events", events, LongAdder::sum)
+            .description("Issue created and updated events received through the webhook")
+            .register(registry);
+        posts.bindTo(registry);
+    }
+
+    public void add(IssueDTO issue) {
+        events.increment();
+
+        final boolean full;
+        synchronized (this) {
+            pending.put(issue.getId(), issue);
+            full = pending.size() >= maxIssues;
+            if (!full && scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush, maxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Drops any buffered update of the issue. Once this returns, no update of the issue
+     * received before the call will be sent.
+     */
+    public void remove(Long id) {
+        synchronized (sendLock) {
+            synchronized (this) {
+                pending.remove(id);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    public void flush() {
+        synchronized (sendLock) {
+            final List<IssueDTO> batch;
+            synchronized (this) {
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                    scheduledFlush = null;
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+
+            try {
+                main.updateIssuesOnDemand(Collections.unmodifiableList(batch), posts);
+            } catch (RuntimeException e) {
+                LOG.error("Error sending {} issues received through the webhook", batch.size(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.controller;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.Main;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.Config;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Re-syncs the sprints of the sprint events received through the webhook on the sprint
+ * sync executor, away from the webhook workers.
+ *
+ * <p>Events of a sprint that is still waiting for its re-sync are folded into it. Once
+ * {@code maxPending} sprints are waiting further events are rejected, so a burst of events
+ * neither grows an unbounded backlog nor holds the scheduled sprint updates back for long.
+ */
+@Component
+public class SprintEventQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SprintEventQueue.class);
+
+    private final Main main;
+    private final Executor executor;
+    private final int maxPending;
+
+    private final Set<String> pending = new HashSet<>();
+
+    @Autowired
+    public SprintEventQueue(Main main,
+                            @Qualifier(Config.SPRINT_SYNC_EXECUTOR) Executor executor,
+                            @Value("${webhook.sprints.maxPending:100}") int maxPending) {
+        this.main = main;
+        this.executor = executor;
+        this.maxPending = Math.max(1, maxPending);
+    }
+
+    /**
+     * Queues a re-sync of the sprint unless one is already waiting.
+     *
+     * @throws RejectedExecutionException if too many sprints are waiting already
+     */
+    public void add(String id) {
+        synchronized (pending) {
+            if (pending.contains(id)) {
+                LOG.debug("-> Sprint {} is already waiting to be updated", id);
+                return;
+            }
+            if (pending.size() >= maxPending) {
+                throw new RejectedExecutionException("Too many sprints waiting to be updated");
+            }
+            pending.add(id);
+        }
+
+        try {
+            executor.execute(() -> update(id));
+        } catch (RejectedExecutionException e) {
+            synchronized (pending) {
+                pending.remove(id);
+            }
+            throw e;
+        }
+    }
+
+    private void update(String id) {
+        //Events received from now on may not be seen by this update, so they queue another one
+        synchronized (pending) {
+            pending.remove(id);
+        }
+
+        try {
+            main.updateSprint(id);
+        } catch (RuntimeException e) {
+            LOG.error("Error updating sprint {} from webhook event", id, e);
+        }
+    }
+}
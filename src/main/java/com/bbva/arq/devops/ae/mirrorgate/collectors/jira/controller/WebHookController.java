@@ -16,22 +16,31 @@
 
 package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.controller;
 
-import com.atlassian.jira.rest.client.api.MetadataRestClient;
 import com.atlassian.jira.rest.client.api.domain.Field;
 import com.atlassian.jira.rest.client.internal.json.IssueJsonParser;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.Main;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.Config;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.JiraIssueUtils;
-import io.atlassian.util.concurrent.Promise;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.MetadataCache;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.OutcomeTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -39,7 +48,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/webhook")
-public class WebHookController {
+public class WebHookController implements MeterBinder {
 
     private enum JiraEvent {
 
@@ -64,6 +73,10 @@ public class WebHookController {
             return name;
         }
 
+        private boolean isSprintUpdate() {
+            return this == SprintClosed || this == SprintDeleted || this == SprintOpened || this == SprintUpdated;
+        }
+
         static JiraEvent fromName(String name) {
             Optional<JiraEvent> event = Arrays.stream(JiraEvent.values())
                 .filter((e) -> e.getName().equals(name))
@@ -80,21 +93,78 @@ public class WebHookController {
     private Main main;
 
     @Autowired
-    private MetadataRestClient client;
+    @Qualifier(Config.JIRA_FIELDS)
+    private MetadataCache<List<Field>> jiraFields;
 
     @Autowired
     private JiraIssueUtils utils;
 
+    @Autowired
+    private IssueEventBuffer buffer;
+
+    @Autowired
+    @Qualifier(Config.WEBHOOK_EXECUTOR)
+    private ExecutorService executor;
+
+    @Autowired
+    private SprintEventQueue sprintEvents;
+
+    private final OutcomeTimer eventTimer = new OutcomeTimer("webhook.events", "Jira webhook events handled");
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        eventTimer.bindTo(registry);
+    }
+
     @RequestMapping(value = "", method = RequestMethod.POST)
-    public void receiveJiraEvent(@RequestBody String eventJson) throws JSONException {
+    public ResponseEntity<Void> receiveJiraEvent(@RequestBody String eventJson) {
+        final long start = eventTimer.start();
+        final JSONObject event;
+        final JiraEvent eventType;
+        try {
+            event = new JSONObject(eventJson);
+            eventType = JiraEvent.fromName(event.getString(WEB_HOOK_EVENT_FIELD));
+        } catch (JSONException e) {
+            eventTimer.stop(start, OutcomeTimer.ERROR);
+            LOG.error("Error reading webhook event", e);
+            return ResponseEntity.badRequest().build();
+        }
 
-        JSONObject event = new JSONObject(eventJson);
+        LOG.info("Event {} received", event.optString(WEB_HOOK_EVENT_FIELD));
 
-        String eventType = event.getString(WEB_HOOK_EVENT_FIELD);
+        try {
+            if (eventType.isSprintUpdate()) {
+                //Sprint updates are queued on their own, so they cannot hold back issue events
+                sprintEvents.add(event.getJSONObject("sprint").getString(WEB_HOOK_JIRA_ID_FIELD));
+                eventTimer.stop(start, OutcomeTimer.SUCCESS);
+            } else {
+                executor.execute(() -> processEvent(eventType, event));
+            }
+        } catch (JSONException e) {
+            eventTimer.stop(start, OutcomeTimer.ERROR);
+            LOG.error("Error trying to update sprint from event {}", event, e);
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Webhook queue is full, rejecting event");
+            eventTimer.record(0, TimeUnit.NANOSECONDS, OutcomeTimer.REJECTED);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.accepted().build();
+    }
 
-        LOG.info("Event {} received", eventType);
+    private void processEvent(JiraEvent eventType, JSONObject event) {
+        final long start = eventTimer.start();
+        try {
+            processEventByType(eventType, event);
+            eventTimer.stop(start, OutcomeTimer.SUCCESS);
+        } catch (JSONException | RuntimeException e) {
+            eventTimer.stop(start, OutcomeTimer.ERROR);
+            LOG.error("Error processing webhook event", e);
+        }
+    }
 
-        switch (JiraEvent.fromName(eventType)) {
+    private void processEventByType(JiraEvent eventType, JSONObject event) throws JSONException {
+        switch (eventType) {
             case IssueCreated:
             case IssueUpdated:
                 processIssueEvent(event.getJSONObject("issue"));
@@ -102,49 +172,37 @@ public class WebHookController {
             case IssueDeleted:
                 processIssueDeleteEvent(event.getJSONObject("issue"));
                 break;
-            case SprintClosed:
-            case SprintDeleted:
-            case SprintOpened:
-            case SprintUpdated:
-                processStringEvent(event.getJSONObject("sprint"));
-                break;
             case SprintCreated:
                 //NOOP;
                 break;
 
             default:
-                LOG.info("Unhandled event type: {}", eventType);
+                LOG.info("Unhandled event type: {}", event.optString(WEB_HOOK_EVENT_FIELD));
         }
 
     }
 
-    private IssueJsonParser issueParser;
-
-    private synchronized IssueJsonParser getParser() {
-        if (issueParser == null) {
-            Promise<Iterable<Field>> fields = client.getFields();
-
-            JSONObject names = new JSONObject();
-            JSONObject schema = new JSONObject();
+    private volatile ParserSnapshot parser;
 
-            try {
-                fields.get().forEach((field) -> {
-                    try {
-                        names.put(field.getId(), field.getName());
-                        schema.put(field.getId(), new JSONObject().put("type", field.getFieldType().name()));
-                    } catch (JSONException e) {
-                        LOG.error("Error reading field value from metadata", e);
-                    }
-                });
-            } catch (InterruptedException e) {
-                LOG.error("Error, interrupted while generating parser", e);
-            } catch (ExecutionException e) {
-                LOG.error("Error while generating parser", e);
-            }
+    @PostConstruct
+    public void init() {
+        jiraFields.onChange((fields) -> parser = new ParserSnapshot(fields));
+        try {
+            getParser();
+        } catch (RuntimeException e) {
+            LOG.warn("Could not build the issue parser, it will be built on the first issue event", e);
+        }
+    }
 
-            issueParser = new IssueJsonParser(names, schema);
+    private IssueJsonParser getParser() {
+        final List<Field> fields = jiraFields.get();
+        ParserSnapshot current = parser;
+        if (current == null || current.fields != fields) {
+            //Only until the change listener catches up
+            current = new ParserSnapshot(fields);
+            parser = current;
         }
-        return issueParser;
+        return current.parser;
     }
 
     private void processIssueEvent(JSONObject issue) throws JSONException {
@@ -153,7 +211,7 @@ public class WebHookController {
         IssueDTO issueBean = utils.map(getParser().parse(issue));
 
         if (issueBean.getType() != null) {
-            main.updateIssuesOnDemand(Collections.singletonList(issueBean));
+            buffer.add(issueBean);
         }
     }
 
@@ -163,16 +221,33 @@ public class WebHookController {
             LOG.error("Error trying to delete issue {}", issue);
             return;
         }
+        buffer.remove(id);
         main.deleteIssue(id);
     }
 
-    private void processStringEvent(JSONObject event) throws JSONException {
-        String id = event.getString(WEB_HOOK_JIRA_ID_FIELD);
-        if (id == null) {
-            LOG.error("Error trying to update spring from event {}", event);
-            return;
+    /**
+     * An issue parser together with the field metadata it was built from.
+     */
+    private static class ParserSnapshot {
+
+        private final List<Field> fields;
+        private final IssueJsonParser parser;
+
+        ParserSnapshot(List<Field> fields) {
+            JSONObject names = new JSONObject();
+            JSONObject schema = new JSONObject();
+
+            fields.forEach((field) -> {
+                try {
+                    names.put(field.getId(), field.getName());
+                    schema.put(field.getId(), new JSONObject().put("type", field.getFieldType().name()));
+                } catch (JSONException e) {
+                    LOG.error("Error reading field value from metadata", e);
+                }
+            });
+
+            this.fields = fields;
+            this.parser = new IssueJsonParser(names, schema);
         }
-        main.updateSprint(id);
     }
-
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.Pageable;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drops the issues of a recent issues search that were already sent in the same state.
+ *
+ * <p>The search starts at the minute of the checkpoint, so every issue updated within that
+ * minute comes back again. An issue is dropped only when it was sent with exactly the same
+ * updated date; issues updated again since then, or indexed late by Jira, still go through.
+ */
+class BoundaryFilterPageable implements Pageable<IssueDTO> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BoundaryFilterPageable.class);
+
+    private final Pageable<IssueDTO> source;
+    private final Map<Long, Date> sent;
+    private final LongAdder suppressed;
+    private int dropped = 0;
+
+    BoundaryFilterPageable(Pageable<IssueDTO> source, Map<Long, Date> sent, LongAdder suppressed) {
+        this.source = source;
+        this.sent = sent;
+        this.suppressed = suppressed;
+    }
+
+    @Override
+    public List<IssueDTO> nextPage() {
+        List<IssueDTO> page;
+        List<IssueDTO> kept;
+
+        //An empty page ends the search, so pages left empty by the filter are skipped
+        do {
+            page = source.nextPage();
+            kept = sent.isEmpty() ? page : page.stream()
+                .filter((i) -> i.getUpdatedDate() == null || !i.getUpdatedDate().equals(sent.get(i.getId())))
+                .collect(Collectors.toList());
+            dropped += page.size() - kept.size();
+            suppressed.add(page.size() - kept.size());
+        } while (kept.isEmpty() && !page.isEmpty());
+
+        if (page.isEmpty() && dropped > 0) {
+            LOGGER.info("-> {} issues of the boundary minute were already sent", dropped);
+            dropped = 0;
+        }
+        return kept;
+    }
+}
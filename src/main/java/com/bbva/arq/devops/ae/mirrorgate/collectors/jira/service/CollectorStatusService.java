@@ -16,10 +16,30 @@
 
 package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service;
 
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import org.joda.time.DateTime;
 
-interface CollectorStatusService {
+public interface CollectorStatusService {
 
     DateTime getLastExecutionDate();
 
+    /**
+     * Moves the checkpoint past a page of issues, sorted by updated date, that was just sent.
+     */
+    void update(List<IssueDTO> sent);
+
+    /**
+     * Returns the updated dates, by id, of the issues already sent within the minute of the
+     * checkpoint. Jira returns them again because JQL dates have minute resolution.
+     */
+    Map<Long, Date> getBoundaryIssues();
+
+    /**
+     * Publishes the checkpoint to MirrorGate if it moved since it was last published.
+     */
+    void flush();
+
 }
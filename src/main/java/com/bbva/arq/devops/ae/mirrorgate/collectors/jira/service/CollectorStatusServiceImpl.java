@@ -14,30 +14,123 @@
  * limitations under the License.
  */
 
+
 package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service;
 
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.api.CollectorService;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.CheckpointStore;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.CheckpointStore.Checkpoint;
+import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
  * Created by alfonso on 26/05/17.
+ *
+ * <p>When {@code collector.checkpoint.file} is set, progress is recorded in that file after
+ * every page and read from it first on start, while the MirrorGate collector date is only
+ * updated every {@code collector.checkpoint.mirrorgateUpdateMillis} and at the end of a run.
+ * Otherwise the MirrorGate date is updated after every page. Either way the issues sent
+ * within the minute of the checkpoint are remembered so they are not sent again.
  */
-
 @Component
 public class CollectorStatusServiceImpl implements CollectorStatusService {
 
-    @Value("${jira.monthsOfHistory:12}")
-    private int monthsOfHistory;
+    private static final Logger LOGGER = LoggerFactory.getLogger(CollectorStatusServiceImpl.class);
+
+    private static final long MINUTE_MILLIS = 60_000;
+
+    private final CollectorService collectorApi;
+    private final int monthsOfHistory;
+    private final long mirrorgateUpdateMillis;
+    private final CheckpointStore store;
+
+    private Checkpoint current;
+    private boolean published = true;
+    private long publishedAt = 0;
 
     @Autowired
-    private CollectorService collectorApi;
+    public CollectorStatusServiceImpl(CollectorService collectorApi,
+                                      @Value("${jira.monthsOfHistory:12}") int monthsOfHistory,
+                                      @Value("${collector.checkpoint.file:}") String checkpointFile,
+                                      @Value("${collector.checkpoint.compactAfter:1000}") int compactAfter,
+                                      @Value("${collector.checkpoint.mirrorgateUpdateMillis:60000}")
+                                          long mirrorgateUpdateMillis
+    ) {
+        this.collectorApi = collectorApi;
+        this.monthsOfHistory = monthsOfHistory;
+        this.mirrorgateUpdateMillis = mirrorgateUpdateMillis;
+        this.store = checkpointFile.isEmpty() ? null : new CheckpointStore(Paths.get(checkpointFile), compactAfter);
+        this.current = store == null ? null : store.get();
+    }
+
+    @Override
+    public synchronized DateTime getLastExecutionDate() {
+        if (store != null && current != null) {
+            LOGGER.info("-> Resuming from the local checkpoint {}", current.getUpdatedDate());
+            return new DateTime(current.getUpdatedDate());
+        }
 
-    public DateTime getLastExecutionDate() {
         Date date = collectorApi.getUpdatedDate();
         return date == null ? DateTime.now().minusMonths(monthsOfHistory) : new DateTime(date);
     }
+
+    @Override
+    public synchronized void update(List<IssueDTO> sent) {
+        final Date updatedDate = sent.isEmpty() ? null : sent.get(sent.size() - 1).getUpdatedDate();
+        if (updatedDate == null) {
+            return;
+        }
+
+        final long minute = minute(updatedDate);
+        final Map<Long, Date> issues = new LinkedHashMap<>();
+        if (current != null) {
+            current.getIssues().forEach((id, date) -> {
+                if (minute(date) == minute) {
+                    issues.put(id, date);
+                }
+            });
+        }
+        sent.stream()
+            .filter((i) -> i.getUpdatedDate() != null && minute(i.getUpdatedDate()) == minute)
+            .forEach((i) -> issues.put(i.getId(), i.getUpdatedDate()));
+
+        current = new Checkpoint(updatedDate, issues);
+        published = false;
+
+        if (store != null) {
+            store.append(current);
+        }
+        if (store == null || System.currentTimeMillis() - publishedAt >= mirrorgateUpdateMillis) {
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized Map<Long, Date> getBoundaryIssues() {
+        return current == null ? Collections.emptyMap() : current.getIssues();
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (!published) {
+            collectorApi.update(current.getUpdatedDate());
+            published = true;
+            publishedAt = System.currentTimeMillis();
+        }
+    }
+
+    private static long minute(Date date) {
+        return date.getTime() / MINUTE_MILLIS;
+    }
 }
@@ -6,4 +6,6 @@ public interface IssueTypeMapService {
 
     String getIssueTypeFor(IssueType id);
 
+    String getIssueTypeFor(Long id, String name);
+
 }
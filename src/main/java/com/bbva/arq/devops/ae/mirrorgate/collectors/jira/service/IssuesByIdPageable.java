@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service;
+
+import com.atlassian.jira.rest.client.api.RestClientException;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.AdaptivePageSize;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.LruCache;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.OutcomeTimer;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.Pageable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Looks issues up by id. The ids are split into chunks up front and up to
+ * {@code parallelism} chunks are searched at the same time.
+ *
+ * <p>Each page holds the issues of one chunk, in chunk order. Chunks where no issue was
+ * found are skipped, so an empty page always means that every chunk was looked up.
+ *
+ * <p>Jira rejects a whole {@code id IN (...)} search with a 400 when one of the ids does
+ * not exist. The failing chunk is then split in halves until the missing ids are isolated,
+ * and those are remembered so that later lookups leave them out.
+ */
+class IssuesByIdPageable implements Pageable<IssueDTO> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IssuesByIdPageable.class);
+
+    private static final String ISSUES_BY_ID_QUERY_PATTERN = "id IN (%s)";
+
+    private final IssueSearch search;
+    private final AdaptivePageSize pageSize;
+    private final int parallelism;
+    private final LruCache<Long, Boolean> missingIds;
+    private final OutcomeTimer pageTimer;
+
+    private final Deque<List<Long>> chunks = new ArrayDeque<>();
+    private final Deque<ChunkRequest> inFlight = new ArrayDeque<>();
+
+    IssuesByIdPageable(
+        IssueSearch search,
+        List<Long> ids,
+        AdaptivePageSize pageSize,
+        int parallelism,
+        LruCache<Long, Boolean> missingIds,
+        OutcomeTimer pageTimer
+    ) {
+        this.search = search;
+        this.pageSize = pageSize;
+        this.parallelism = Math.max(1, parallelism);
+        this.missingIds = missingIds;
+        this.pageTimer = pageTimer;
+
+        final List<Long> candidates = ids.stream()
+            .filter((id) -> missingIds.getIfPresent(id) == null)
+            .collect(Collectors.toList());
+        if (candidates.size() < ids.size()) {
+            LOGGER.info("-> Skipping {} issues known not to exist", ids.size() - candidates.size());
+        }
+
+        final int size = pageSize.get();
+        for (int i = 0; i < candidates.size(); i += size) {
+            chunks.add(candidates.subList(i, Math.min(candidates.size(), i + size)));
+        }
+    }
+
+    @Override
+    public List<IssueDTO> nextPage() {
+        List<IssueDTO> issues = new ArrayList<>();
+
+        fill();
+        while (issues.isEmpty() && !inFlight.isEmpty()) {
+            issues = complete(inFlight.poll());
+            fill();
+        }
+
+        return issues;
+    }
+
+    private void fill() {
+        while (inFlight.size() < parallelism && !chunks.isEmpty()) {
+            inFlight.add(request(chunks.poll()));
+        }
+    }
+
+    private ChunkRequest request(List<Long> ids) {
+        final String query = String.format(ISSUES_BY_ID_QUERY_PATTERN,
+            ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+
+        LOGGER.info("-> Running Jira Query: {}", query);
+        final long sentAt = pageTimer.start();
+        return new ChunkRequest(ids, query, sentAt, search.search(query, 0, ids.size()));
+    }
+
+    private List<IssueDTO> complete(ChunkRequest request) {
+        try {
+            SearchPage page = await(request.page, request.sentAt);
+            final List<IssueDTO> issues = new ArrayList<>(page.getIssues());
+            record(request, page);
+
+            //Jira may cap the page size below the chunk size
+            while (page.getIssues().size() > 0 && issues.size() < page.getTotal()) {
+                final long sentAt = pageTimer.start();
+                page = await(search.search(request.query, issues.size(), request.ids.size()), sentAt);
+                issues.addAll(page.getIssues());
+                record(request, page);
+            }
+            return issues;
+        } catch (RestClientException e) {
+            return recover(request.ids, e);
+        }
+    }
+
+    private SearchPage await(Future<SearchPage> future, long sentAt) {
+        try {
+            final SearchPage page = IssueSearch.await(future);
+            pageTimer.record(page.getElapsedMillis(), TimeUnit.MILLISECONDS, OutcomeTimer.SUCCESS);
+            return page;
+        } catch (RuntimeException e) {
+            pageTimer.stop(sentAt, OutcomeTimer.ERROR);
+            throw e;
+        }
+    }
+
+    private void record(ChunkRequest request, SearchPage page) {
+        pageSize.record(request.ids.size(), page.getIssues().size(), page.getMaxResults(),
+            page.getElapsedMillis(), page.getBytes());
+    }
+
+    private List<IssueDTO> recover(List<Long> ids, RestClientException e) {
+        LOGGER.warn("Exception", e);
+        int statusCode = e.getStatusCode().isPresent() ? e.getStatusCode().get() : 0;
+        if (statusCode == 401) {
+            LOGGER.error("Error 401 connecting to JIRA server, your credentials are probably wrong. "
+                + "Note: Ensure you are using JIRA user name not your email address.");
+            throw e;
+        } else if (statusCode == 400) {
+            if (ids.size() == 1) {
+                LOGGER.warn("Error 400 - Issue {} not found, keep on", ids.get(0));
+                missingIds.put(ids.get(0), Boolean.TRUE);
+                return new ArrayList<>();
+            } else {
+                LOGGER.warn("Error 400 - Some issues where not found {}, keep on", ids);
+                LOGGER.warn(e.getMessage());
+                //Jira rejects the whole search if one was not found... Why Jira o why...
+                //Both halves are requested before waiting for either of them
+                final ChunkRequest first = request(ids.subList(0, ids.size() / 2));
+                final ChunkRequest second = request(ids.subList(ids.size() / 2, ids.size()));
+                final List<IssueDTO> result = new ArrayList<>(ids.size());
+                result.addAll(complete(first));
+                result.addAll(complete(second));
+                return result;
+            }
+        } else {
+            LOGGER.error("No result was available from Jira unexpectedly - defaulting to blank response. "
+                + "The reason for this fault is the following:" + e.getCause());
+            throw e;
+        }
+    }
+
+    private static class ChunkRequest {
+
+        private final List<Long> ids;
+        private final String query;
+        private final long sentAt;
+        private final Future<SearchPage> page;
+
+        ChunkRequest(List<Long> ids, String query, long sentAt, Future<SearchPage> page) {
+            this.ids = ids;
+            this.query = query;
+            this.sentAt = sentAt;
+            this.page = page;
+        }
+    }
+}
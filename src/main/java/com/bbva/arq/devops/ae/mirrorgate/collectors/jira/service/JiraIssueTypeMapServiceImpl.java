@@ -4,15 +4,19 @@ import com.atlassian.jira.rest.client.api.MetadataRestClient;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.Config;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.exception.IssueMapException;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.IssueType;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.MetadataCache;
 import io.atlassian.util.concurrent.Promise;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import javax.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
@@ -22,7 +26,7 @@ public class JiraIssueTypeMapServiceImpl implements IssueTypeMapService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JiraStatusMapServiceImpl.class);
 
-    private final Map<Long, String> issueTypeCache = new HashMap<>();
+    private final MetadataCache<Map<Long, String>> issueTypeCache;
 
     private final Map<String, IssueType> issueTypeMapping;
 
@@ -32,40 +36,62 @@ public class JiraIssueTypeMapServiceImpl implements IssueTypeMapService {
     public JiraIssueTypeMapServiceImpl(
             @Qualifier(Config.JIRA_TYPES_MAPPING)
             Map<String, IssueType> issueTypeMapping,
-            MetadataRestClient metadataRestClient
+            MetadataRestClient metadataRestClient,
+            @Qualifier(Config.METADATA_REFRESH_EXECUTOR)
+            ScheduledExecutorService metadataRefreshExecutor,
+            @Value("${jira.metadata.ttlMillis:600000}") long ttlMillis,
+            @Value("${jira.metadata.minRefreshMillis:30000}") long minRefreshMillis
     ) {
         this.issueTypeMapping = issueTypeMapping;
         this.metadataRestClient = metadataRestClient;
+        this.issueTypeCache = new MetadataCache<>("issue types", this::loadIssueTypes,
+            ttlMillis, minRefreshMillis, metadataRefreshExecutor);
     }
 
     @Override
     public String getIssueTypeFor(com.atlassian.jira.rest.client.api.domain.IssueType type) {
-        String pre = issueTypeCache.get(type.getId());
+        return getIssueTypeFor(type.getId(), type.getName());
+    }
+
+    @Override
+    public String getIssueTypeFor(Long id, String name) {
+        Map<Long, String> issueTypes = issueTypeCache.get();
+        String pre = issueTypes.get(id);
+        if (pre == null) {
+            //Maybe an issue type created since the issue types were loaded
+            pre = issueTypeCache.refreshOnMiss(issueTypes).get(id);
+        }
         IssueType target = pre == null ? null : issueTypeMapping.get(pre);
         if (target == null) {
-            LOGGER.warn("Type mapping not found for {} with id {}", type.getName(), type.getId());
+            LOGGER.warn("Type mapping not found for {} with id {}", name, id);
         }
         return target == null ? null : target.getName();
     }
 
     @PostConstruct
     private void createJiraIssueTypeMap() {
+        issueTypeCache.get();
+    }
+
+    private Map<Long, String> loadIssueTypes() {
         Promise<Iterable<com.atlassian.jira.rest.client.api.domain.IssueType>> issueTypesPromise =
             metadataRestClient.getIssueTypes();
 
         try {
+            Map<Long, String> issueTypeNames = new HashMap<>();
             Iterable<com.atlassian.jira.rest.client.api.domain.IssueType> issueTypes = issueTypesPromise.get();
             issueTypes.forEach(
-                issueType -> issueTypeCache.put(issueType.getId(), issueType.getName())
+                issueType -> issueTypeNames.put(issueType.getId(), issueType.getName())
             );
+            return Collections.unmodifiableMap(issueTypeNames);
         } catch (InterruptedException e) {
             LOGGER.error("Interrupted Exception while trying to recover issue types");
+            Thread.currentThread().interrupt();
             throw new IssueMapException(e);
         } catch (ExecutionException e) {
             LOGGER.error("Execution Exception while trying to recover issue types");
             throw new IssueMapException(e);
         }
-
     }
 
 }
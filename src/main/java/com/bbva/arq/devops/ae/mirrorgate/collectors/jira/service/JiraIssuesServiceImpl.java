@@ -18,61 +18,98 @@ package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service;
 
 import static com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.Config.JIRA_TYPES;
 
-import com.atlassian.jira.rest.client.api.RestClientException;
-import com.atlassian.jira.rest.client.api.SearchRestClient;
-import com.atlassian.jira.rest.client.api.domain.SearchResult;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
-import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.Counter;
-import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.JiraIssueUtils;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.AdaptivePageSize;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.LruCache;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.OutcomeTimer;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.Pageable;
-import io.atlassian.util.concurrent.Promise;
-import java.util.ArrayList;
-import java.util.Collections;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import java.util.List;
 import java.util.TimeZone;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.concurrent.atomic.LongAdder;
 import org.joda.time.DateTimeZone;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
-public class JiraIssuesServiceImpl implements IssuesService {
+public class JiraIssuesServiceImpl implements IssuesService, MeterBinder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JiraIssuesServiceImpl.class);
 
     private static final String ISSUES_QUERY_PATTERN = "updatedDate>='%s' AND issueType in(%s) ORDER BY updated ASC";
-    private static final String ISSUES_BY_ID_QUERY_PATTERN = "id IN (%s)";
-    private static final int PAGE_SIZE = 10;
 
     private final String issueTypes;
 
-    private final SearchRestClient client;
+    private final IssueSearch search;
     private final CollectorStatusService collectorStatusService;
-    private final JiraIssueUtils utils;
     private final TimeZone jiraTimeZone;
+    private final int prefetchPages;
+    private final int byIdParallelism;
+    private final AdaptivePageSize recentPageSize;
+    private final AdaptivePageSize byIdPageSize;
+    private final LruCache<Long, Boolean> missingIds;
+    private final LongAdder boundaryDuplicates = new LongAdder();
+    private final OutcomeTimer recentPages = new OutcomeTimer(
+        "jira.search.pages", "Jira search pages fetched", "query", "recent");
+    private final OutcomeTimer byIdPages = new OutcomeTimer(
+        "jira.search.pages", "Jira search pages fetched", "query", "byId");
 
     @Autowired
     public JiraIssuesServiceImpl(@Qualifier(JIRA_TYPES) String issueTypes,
-                                 SearchRestClient jiraRestClient,
+                                 IssueSearch issueSearch,
                                  CollectorStatusService collectorStatusService,
-                                 JiraIssueUtils jiraIssueUtils,
-                                 TimeZone jiraTimeZone
+                                 TimeZone jiraTimeZone,
+                                 @Value("${jira.search.prefetchPages:4}") int prefetchPages,
+                                 @Value("${jira.search.byIdParallelism:4}") int byIdParallelism,
+                                 @Value("${jira.search.missingIdsCache.size:10000}") int missingIdsCacheSize,
+                                 @Value("${jira.search.pageSize.min:10}") int minPageSize,
+                                 @Value("${jira.search.pageSize.max:100}") int maxPageSize,
+                                 @Value("${jira.search.pageSize.targetMillis:2000}") long targetMillis,
+                                 @Value("${jira.search.pageSize.targetBytes:2097152}") long targetBytes
     ) {
         this.issueTypes = issueTypes;
-        this.client = jiraRestClient;
+        this.search = issueSearch;
         this.collectorStatusService = collectorStatusService;
-        this.utils = jiraIssueUtils;
         this.jiraTimeZone = jiraTimeZone;
+        this.prefetchPages = Math.max(0, prefetchPages);
+        this.byIdParallelism = Math.max(1, byIdParallelism);
+        this.recentPageSize = new AdaptivePageSize(minPageSize, maxPageSize, targetMillis, targetBytes);
+        this.byIdPageSize = new AdaptivePageSize(minPageSize, maxPageSize, targetMillis, targetBytes);
+        this.missingIds = new LruCache<>(missingIdsCacheSize);
     }
 
     @Override
-    public Pageable<IssueDTO> getRecentIssues() {
-        final Counter page = new Counter(PAGE_SIZE);
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("jira.search.page.size", recentPageSize, AdaptivePageSize::get)
+            .description("Page size chosen for Jira searches")
+            .tag("query", "recent")
+            .register(registry);
+        Gauge.builder("jira.search.page.size", byIdPageSize, AdaptivePageSize::get)
+            .description("Page size chosen for Jira searches")
+            .tag("query", "byId")
+            .register(registry);
+        Gauge.builder("jira.search.missing.ids", missingIds, LruCache::size)
+            .description("Issue ids remembered as not found in Jira")
+            .register(registry);
+        FunctionCounter.builder("jira.search.missing.skipped", missingIds, LruCache::hits)
+            .description("Lookups of issue ids skipped because they were known not to exist")
+            .register(registry);
+        FunctionCounter.builder("jira.search.boundary.duplicates", boundaryDuplicates, LongAdder::sum)
+            .description("Issues of the boundary minute dropped because they were already sent")
+            .register(registry);
+        recentPages.bindTo(registry);
+        byIdPages.bindTo(registry);
+    }
 
+    @Override
+    public Pageable<IssueDTO> getRecentIssues() {
         String date =
                 collectorStatusService.getLastExecutionDate()
                         .toDateTime(DateTimeZone.forTimeZone(jiraTimeZone))
@@ -83,66 +120,14 @@ public class JiraIssuesServiceImpl implements IssuesService {
 
         LOGGER.info("-> Running Jira Query: {}", query);
 
-        return (() -> {
-
-            Promise<SearchResult> results = client.searchJql(query, PAGE_SIZE, page.inc(), null);
-
-            return StreamSupport.stream(results.claim().getIssues().spliterator(), false)
-                .map(utils::map).collect(Collectors.toList());
-        });
+        return new BoundaryFilterPageable(
+            new JqlSearchPageable(search, query, recentPageSize, prefetchPages, recentPages),
+            collectorStatusService.getBoundaryIssues(),
+            boundaryDuplicates);
     }
 
     @Override
     public Pageable<IssueDTO> getById(List<Long> ids) {
-        final StringBuilder sb = new StringBuilder(200);
-        final Counter counter = new Counter();
-
-        return (() -> {
-            int firstItem = counter.get();
-            if (counter.get() >= ids.size()) {
-                return new ArrayList<>();
-            }
-            for (int i = 0; i < PAGE_SIZE && counter.get() < ids.size(); counter.inc(), i++) {
-                if (i > 0) {
-                    sb.append(',');
-                }
-                sb.append(ids.get(counter.get()));
-            }
-            String query = String.format(ISSUES_BY_ID_QUERY_PATTERN, sb.toString());
-            sb.delete(0, sb.length());
-
-            LOGGER.info("-> Running Jira Query: {}", query);
-            try {
-                Promise<SearchResult> results = client.searchJql(query);
-                return StreamSupport.stream(results.claim().getIssues().spliterator(), false)
-                    .map(utils::map).collect(Collectors.toList());
-            }  catch (RestClientException e) {
-                LOGGER.warn("Exception", e);
-                int statusCode = e.getStatusCode().isPresent() ? e.getStatusCode().get() : 0;
-                if (statusCode == 401) {
-                    LOGGER.error("Error 401 connecting to JIRA server, your credentials are probably wrong. "
-                        + "Note: Ensure you are using JIRA user name not your email address.");
-                    throw e;
-                } else if (statusCode == 400) {
-                    if (ids.size() == 1) {
-                        return new ArrayList<>();
-                    } else {
-                        LOGGER.warn("Error 400 - Some issues where not found {}, keep on", ids);
-                        LOGGER.warn(e.getMessage());
-                        //Falling back to per issue invocation if one was not found... Why Jira o why...
-                        List<IssueDTO> result = new ArrayList<>(PAGE_SIZE);
-                        for (int i = firstItem; i < counter.get(); i++) {
-                            result.addAll(getById(Collections.singletonList(ids.get(i))).nextPage());
-                        }
-                        return result;
-                    }
-                } else {
-                    LOGGER.error("No result was available from Jira unexpectedly - defaulting to blank response. "
-                        + "The reason for this fault is the following:" + e.getCause());
-                    throw e;
-                }
-            }
-        });
-
+        return new IssuesByIdPageable(search, ids, byIdPageSize, byIdParallelism, missingIds, byIdPages);
     }
 }
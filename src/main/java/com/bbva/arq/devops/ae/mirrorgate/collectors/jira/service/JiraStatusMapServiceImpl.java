@@ -19,10 +19,13 @@ package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service;
 import com.atlassian.jira.rest.client.api.domain.Status;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.Config;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.IssueStatus;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.MetadataCache;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,7 +47,7 @@ public class JiraStatusMapServiceImpl implements StatusMapService {
 
     private final Map<String, IssueStatus> issueStatusMapping;
 
-    private Map<Long, IssueStatus> statusCache;
+    private final MetadataCache<Map<Long, IssueStatus>> statusCache;
 
     private final RestTemplate restTemplate;
 
@@ -53,10 +56,16 @@ public class JiraStatusMapServiceImpl implements StatusMapService {
             @Qualifier(Config.JIRA_REST_TEMPLATE)
                     RestTemplate restTemplate,
             @Qualifier(Config.JIRA_STATUS_MAPPING)
-                    Map<String, IssueStatus> issueStatusMapping
+                    Map<String, IssueStatus> issueStatusMapping,
+            @Qualifier(Config.METADATA_REFRESH_EXECUTOR)
+                    ScheduledExecutorService metadataRefreshExecutor,
+            @Value("${jira.metadata.ttlMillis:600000}") long ttlMillis,
+            @Value("${jira.metadata.minRefreshMillis:30000}") long minRefreshMillis
     ) {
         this.restTemplate = restTemplate;
         this.issueStatusMapping = issueStatusMapping;
+        this.statusCache = new MetadataCache<>("statuses", this::loadStatusMappings,
+            ttlMillis, minRefreshMillis, metadataRefreshExecutor);
     }
 
     private IssueStatus getStatus(Object status) {
@@ -81,24 +90,30 @@ public class JiraStatusMapServiceImpl implements StatusMapService {
         return (String) ((Map) map).get(field);
     }
 
-    private synchronized Map<Long, IssueStatus> getStatusMappings() {
-
-        if (statusCache == null) {
-            List jsa = restTemplate.getForObject(jiraUrl + SERVER_URI, ArrayList.class);
-            statusCache = (Map<Long, IssueStatus>) Objects.requireNonNull(jsa).stream().collect(Collectors.toMap(
+    private Map<Long, IssueStatus> loadStatusMappings() {
+        List jsa = restTemplate.getForObject(jiraUrl + SERVER_URI, ArrayList.class);
+        return Collections.unmodifiableMap((Map<Long, IssueStatus>) Objects.requireNonNull(jsa).stream()
+            .collect(Collectors.toMap(
                 (status) -> Long.parseLong(getField(status, "id")),
                 this::getStatus
-            ));
-        }
-
-        return statusCache;
+            )));
     }
 
     @Override
     public IssueStatus getStatusFor(Status status) {
-        IssueStatus issueStatus = getStatusMappings().get(status.getId());
+        return getStatusFor(status.getId(), status.getName());
+    }
+
+    @Override
+    public IssueStatus getStatusFor(Long id, String name) {
+        Map<Long, IssueStatus> statuses = statusCache.get();
+        IssueStatus issueStatus = statuses.get(id);
+        if (issueStatus == null) {
+            //Maybe a status created since the statuses were loaded
+            issueStatus = statusCache.refreshOnMiss(statuses).get(id);
+        }
         if (issueStatus == null) {
-            LOGGER.warn("IssueStatus not found for {} with id {}", status.getName(), status.getId());
+            LOGGER.warn("IssueStatus not found for {} with id {}", name, id);
         }
         return issueStatus;
     }
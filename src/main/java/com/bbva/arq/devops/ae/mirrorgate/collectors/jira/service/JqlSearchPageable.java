@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.AdaptivePageSize;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.OutcomeTimer;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.Pageable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pages through a JQL search keeping up to {@code prefetchPages} requests in flight.
+ *
+ * <p>Pages are always handed out in request order, so the order imposed by the JQL
+ * (e.g. {@code ORDER BY updated ASC}) is preserved. Prefetching only starts once the
+ * first page has told us the total; past that total pages are requested one by one
+ * until an empty one is returned, so issues appended while paging are still seen.
+ */
+class JqlSearchPageable implements Pageable<IssueDTO> {
+
+    private final IssueSearch search;
+    private final String query;
+    private final AdaptivePageSize pageSize;
+    private final int prefetchPages;
+    private final OutcomeTimer pageTimer;
+
+    private final Deque<PageRequest> inFlight = new ArrayDeque<>();
+    private int nextStart = 0;
+    private int total = 0;
+
+    JqlSearchPageable(IssueSearch search, String query, AdaptivePageSize pageSize, int prefetchPages,
+                      OutcomeTimer pageTimer) {
+        this.search = search;
+        this.query = query;
+        this.pageSize = pageSize;
+        this.prefetchPages = prefetchPages;
+        this.pageTimer = pageTimer;
+    }
+
+    @Override
+    public List<IssueDTO> nextPage() {
+        if (inFlight.isEmpty()) {
+            request();
+        }
+
+        final PageRequest request = inFlight.poll();
+        final SearchPage page;
+        try {
+            page = IssueSearch.await(request.page);
+        } catch (RuntimeException e) {
+            pageTimer.stop(request.sentAt, OutcomeTimer.ERROR);
+            //The search is abandoned, so nobody will wait for the pages requested ahead
+            inFlight.forEach((r) -> r.page.cancel(false));
+            inFlight.clear();
+            throw e;
+        }
+        final List<IssueDTO> issues = page.getIssues();
+
+        pageTimer.record(page.getElapsedMillis(), TimeUnit.MILLISECONDS, OutcomeTimer.SUCCESS);
+
+        pageSize.record(request.size, issues.size(), page.getMaxResults(), page.getElapsedMillis(), page.getBytes());
+        total = page.getTotal();
+
+        if (issues.size() < request.size && request.startAt + issues.size() < total) {
+            //Jira capped the page size, so the pages requested ahead would leave a gap
+            inFlight.forEach((r) -> r.page.cancel(false));
+            inFlight.clear();
+            nextStart = request.startAt + issues.size();
+        }
+
+        while (inFlight.size() < prefetchPages && nextStart < total) {
+            request();
+        }
+
+        return issues;
+    }
+
+    private void request() {
+        final int size = pageSize.get();
+        final long sentAt = pageTimer.start();
+        inFlight.add(new PageRequest(nextStart, size, sentAt, search.search(query, nextStart, size)));
+        nextStart += size;
+    }
+
+    private static class PageRequest {
+
+        private final int startAt;
+        private final int size;
+        private final long sentAt;
+        private final Future<SearchPage> page;
+
+        PageRequest(int startAt, int size, long sentAt, Future<SearchPage> page) {
+            this.startAt = startAt;
+            this.size = size;
+            this.sentAt = sentAt;
+            this.page = page;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service;
+
+import com.atlassian.jira.rest.client.api.SearchRestClient;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.FieldsConfig;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.JiraIssueUtils;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Searches through the Jira REST Java Client and maps its {@code Issue} model.
+ */
+@Component
+@ConditionalOnProperty(name = "jira.search.streaming", havingValue = "false", matchIfMissing = true)
+public class JrcpIssueSearch implements IssueSearch {
+
+    private final SearchRestClient client;
+    private final Set<String> fields;
+    private final JiraIssueUtils utils;
+
+    @Autowired
+    public JrcpIssueSearch(SearchRestClient client,
+                           @Qualifier(FieldsConfig.SEARCH_FIELDS_BEAN) Set<String> fields,
+                           JiraIssueUtils utils) {
+        this.client = client;
+        this.fields = fields;
+        this.utils = utils;
+    }
+
+    @Override
+    public Future<SearchPage> search(String jql, int startAt, int maxResults) {
+        final long sentAt = System.nanoTime();
+
+        return client.searchJql(jql, maxResults, startAt, fields).map((result) -> {
+            final long elapsedMillis = (System.nanoTime() - sentAt) / 1_000_000;
+            final List<IssueDTO> issues = StreamSupport.stream(result.getIssues().spliterator(), false)
+                .map(utils::map).collect(Collectors.toList());
+
+            return new SearchPage(issues, result.getTotal(), result.getMaxResults(), elapsedMillis, -1);
+        });
+    }
+}
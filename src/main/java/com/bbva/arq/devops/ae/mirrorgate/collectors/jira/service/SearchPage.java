@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import java.util.List;
+
+/**
+ * One page of a JQL search, already mapped, together with what it cost to get it.
+ */
+public class SearchPage {
+
+    private final List<IssueDTO> issues;
+    private final int total;
+    private final int maxResults;
+    private final long elapsedMillis;
+    private final long bytes;
+
+    public SearchPage(List<IssueDTO> issues, int total, int maxResults) {
+        this(issues, total, maxResults, 0, -1);
+    }
+
+    public SearchPage(List<IssueDTO> issues, int total, int maxResults, long elapsedMillis, long bytes) {
+        this.issues = issues;
+        this.total = total;
+        this.maxResults = maxResults;
+        this.elapsedMillis = elapsedMillis;
+        this.bytes = bytes;
+    }
+
+    public SearchPage withCost(long elapsedMillis, long bytes) {
+        return new SearchPage(issues, total, maxResults, elapsedMillis, bytes);
+    }
+
+    public List<IssueDTO> getIssues() {
+        return issues;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Size of the response, or a negative value when the client does not expose it.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+}
@@ -23,4 +23,6 @@ public interface StatusMapService {
 
     IssueStatus getStatusFor(Status status);
 
+    IssueStatus getStatusFor(Long id, String name);
+
 }
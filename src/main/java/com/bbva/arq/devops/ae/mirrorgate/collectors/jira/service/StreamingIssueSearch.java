@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service;
+
+import com.atlassian.jira.rest.client.api.RestClientException;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.Config;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.FieldsConfig;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.JiraSearchResponseParser;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Calls {@code /rest/api/2/search} directly and maps the response while it is being read,
+ * without building the JSON tree and {@code Issue} model JRCP needs.
+ */
+@Component
+@ConditionalOnProperty(name = "jira.search.streaming", havingValue = "true")
+public class StreamingIssueSearch implements IssueSearch {
+
+    private static final String SEARCH_URI = "/rest/api/2/search";
+
+    private final RestTemplate restTemplate;
+    private final JiraSearchResponseParser parser;
+    private final ExecutorService executor;
+    private final String fields;
+    private final String jiraUrl;
+
+    @Autowired
+    public StreamingIssueSearch(@Qualifier(Config.JIRA_REST_TEMPLATE) RestTemplate restTemplate,
+                                JiraSearchResponseParser parser,
+                                @Qualifier(Config.JIRA_READER_EXECUTOR) ExecutorService executor,
+                                @Qualifier(FieldsConfig.SEARCH_FIELDS_BEAN) Set<String> fields,
+                                @Value("${jira.url}") String jiraUrl) {
+        this.restTemplate = restTemplate;
+        this.parser = parser;
+        this.executor = executor;
+        this.fields = String.join(",", fields);
+        this.jiraUrl = jiraUrl;
+    }
+
+    @Override
+    public Future<SearchPage> search(String jql, int startAt, int maxResults) {
+        return executor.submit(() -> fetch(jql, startAt, maxResults));
+    }
+
+    private SearchPage fetch(String jql, int startAt, int maxResults) {
+        final Map<String, Object> params = new HashMap<>();
+        params.put("jql", jql);
+        params.put("startAt", startAt);
+        params.put("maxResults", maxResults);
+        params.put("fields", fields);
+
+        //Values are expanded strictly encoded, so '+' or '&' in the JQL reach Jira untouched
+        final URI uri = UriComponentsBuilder.fromHttpUrl(jiraUrl + SEARCH_URI)
+            .query("jql={jql}&startAt={startAt}&maxResults={maxResults}&fields={fields}")
+            .encode()
+            .buildAndExpand(params)
+            .toUri();
+
+        final long sentAt = System.nanoTime();
+        try {
+            return restTemplate.execute(uri, HttpMethod.GET,
+                (request) -> request.getHeaders().setAccept(Collections.singletonList(MediaType.APPLICATION_JSON)),
+                (response) -> {
+                    final CountingInputStream body = new CountingInputStream(response.getBody());
+                    final SearchPage page = parser.parse(body);
+                    return page.withCost((System.nanoTime() - sentAt) / 1_000_000, body.count);
+                });
+        } catch (HttpStatusCodeException e) {
+            throw new RestClientException(e, e.getRawStatusCode());
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
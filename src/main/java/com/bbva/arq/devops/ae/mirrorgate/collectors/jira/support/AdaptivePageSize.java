@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+/**
+ * Chooses the page size of Jira searches from the cost of the previous pages.
+ *
+ * <p>Starts at the configured maximum, halves the size whenever a page takes longer than
+ * the target time or carries more than the target payload, and grows it again by half
+ * while full pages come back well under both targets. Jira may cap the page size
+ * server-side; once it does, that cap becomes the new upper bound.
+ */
+public class AdaptivePageSize {
+
+    private final int min;
+    private final long targetMillis;
+    private final long targetBytes;
+
+    private int max;
+    private volatile int current;
+
+    public AdaptivePageSize(int min, int max, long targetMillis, long targetBytes) {
+        this.min = Math.max(1, min);
+        this.max = Math.max(this.min, max);
+        this.targetMillis = targetMillis;
+        this.targetBytes = targetBytes;
+        this.current = this.max;
+    }
+
+    public int get() {
+        return current;
+    }
+
+    /**
+     * Feeds back the outcome of a page.
+     *
+     * @param requested page size that was asked for
+     * @param returned number of issues that came back
+     * @param serverMax page size Jira says it applied, or 0 if unknown
+     * @param elapsedMillis time it took to get the page
+     * @param bytes response size, or a negative value if unknown
+     */
+    public synchronized void record(int requested, int returned, int serverMax, long elapsedMillis, long bytes) {
+        if (serverMax > 0 && serverMax < requested) {
+            max = Math.max(min, serverMax);
+        }
+
+        int next = current;
+        if (elapsedMillis > targetMillis || (bytes >= 0 && bytes > targetBytes)) {
+            next = current / 2;
+        } else if (returned >= requested
+            && elapsedMillis < targetMillis / 2
+            && (bytes < 0 || bytes < targetBytes / 2)) {
+            next = current + Math.max(1, current / 2);
+        }
+
+        current = Math.max(min, Math.min(max, next));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a {@link Pageable} on a background thread into a bounded queue.
+ *
+ * <p>The reader blocks once {@code capacity} pages are waiting, so a slow consumer
+ * throttles the source. Pages are handed out in the order the source produced them
+ * and any exception thrown by the source is rethrown from {@link #nextPage()}.
+ */
+public class BufferedPageable<T> implements Pageable<T>, AutoCloseable {
+
+    private final BlockingQueue<List<T>> queue;
+    private final Future<?> reader;
+
+    private volatile RuntimeException failure;
+    private boolean finished = false;
+
+    public BufferedPageable(Pageable<T> source, int capacity, ExecutorService executor) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.reader = executor.submit(() -> read(source));
+    }
+
+    private void read(Pageable<T> source) {
+        try {
+            List<T> page;
+            do {
+                try {
+                    page = source.nextPage();
+                } catch (RuntimeException e) {
+                    failure = e;
+                    page = Collections.emptyList();
+                }
+                queue.put(page);
+            } while (page.size() > 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public List<T> nextPage() {
+        if (finished) {
+            return Collections.emptyList();
+        }
+
+        final List<T> page;
+        try {
+            page = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the next page", e);
+        }
+
+        if (page.size() == 0) {
+            finished = true;
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void close() {
+        reader.cancel(true);
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only file recording how far the collector got.
+ *
+ * <p>Every record is a line holding the updated date of the last issue sent, in epoch
+ * millis, followed by the {@code id@updatedDate} pairs of the issues sent within the same
+ * minute, which Jira may return again since JQL dates have minute resolution. Only complete
+ * lines are read back, so a record torn by a crash is ignored and the previous one is
+ * used. Once {@code compactAfter} records were appended the file is rewritten with just
+ * the latest one and atomically moved over the old file.
+ */
+public class CheckpointStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckpointStore.class);
+
+    private final Path file;
+    private final Path compacted;
+    private final int compactAfter;
+
+    private Checkpoint last;
+    private int appended;
+
+    public CheckpointStore(Path file, int compactAfter) {
+        this.file = file;
+        this.compacted = file.resolveSibling(file.getFileName() + ".compact");
+        this.compactAfter = Math.max(1, compactAfter);
+        load();
+    }
+
+    public synchronized Checkpoint get() {
+        return last;
+    }
+
+    public synchronized void append(Checkpoint checkpoint) {
+        try {
+            if (++appended >= compactAfter) {
+                compact(checkpoint);
+            } else {
+                write(file, checkpoint, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing the checkpoint to " + file, e);
+        }
+        last = checkpoint;
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        final String content;
+        try {
+            content = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            LOGGER.warn("Could not read the checkpoint from {}", file, e);
+            return;
+        }
+
+        //Whatever follows the last line break was torn by a crash while being written
+        final String[] lines = content.substring(0, content.lastIndexOf('\n') + 1).split("\n");
+        appended = lines.length;
+        for (int i = lines.length - 1; i >= 0 && last == null; i--) {
+            last = parse(lines[i]);
+        }
+
+        if (!content.isEmpty() && (last == null || !content.endsWith("\n"))) {
+            LOGGER.warn("Discarding unreadable checkpoint records in {}", file);
+            try {
+                if (last == null) {
+                    Files.delete(file);
+                } else {
+                    compact(last);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error repairing the checkpoint in " + file, e);
+            }
+        }
+    }
+
+    private void compact(Checkpoint checkpoint) throws IOException {
+        write(compacted, checkpoint, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        appended = 0;
+    }
+
+    private static void write(Path path, Checkpoint checkpoint, StandardOpenOption... options) throws IOException {
+        final String line = checkpoint.updatedDate.getTime() + " "
+            + checkpoint.issues.entrySet().stream()
+                .map((e) -> e.getKey() + "@" + e.getValue().getTime())
+                .collect(Collectors.joining(","))
+            + "\n";
+
+        try (FileChannel channel = FileChannel.open(path, withWrite(options))) {
+            final ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    private static Set<StandardOpenOption> withWrite(StandardOpenOption... options) {
+        final Set<StandardOpenOption> set = new LinkedHashSet<>();
+        set.add(StandardOpenOption.WRITE);
+        Collections.addAll(set, options);
+        return set;
+    }
+
+    private static Checkpoint parse(String line) {
+        final int separator = line.indexOf(' ');
+        if (separator < 0) {
+            return null;
+        }
+
+        try {
+            final Date updatedDate = new Date(Long.parseLong(line.substring(0, separator)));
+            final Map<Long, Date> issues = new LinkedHashMap<>();
+            for (String issue : line.substring(separator + 1).split(",")) {
+                if (!issue.isEmpty()) {
+                    //Records holding bare ids list the issues sent with exactly that date
+                    final int at = issue.indexOf('@');
+                    issues.put(Long.valueOf(at < 0 ? issue : issue.substring(0, at)),
+                        at < 0 ? updatedDate : new Date(Long.parseLong(issue.substring(at + 1))));
+                }
+            }
+            return new Checkpoint(updatedDate, issues);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Updated date of the last issue sent and the updated dates, by id, of the issues sent
+     * within the same minute.
+     */
+    public static class Checkpoint {
+
+        private final Date updatedDate;
+        private final Map<Long, Date> issues;
+
+        public Checkpoint(Date updatedDate, Map<Long, Date> issues) {
+            this.updatedDate = updatedDate;
+            this.issues = Collections.unmodifiableMap(new LinkedHashMap<>(issues));
+        }
+
+        public Date getUpdatedDate() {
+            return updatedDate;
+        }
+
+        public Map<Long, Date> getIssues() {
+            return issues;
+        }
+    }
+}
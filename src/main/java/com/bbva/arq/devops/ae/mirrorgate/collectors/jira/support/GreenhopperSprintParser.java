@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.SprintDTO;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.joda.time.DateTime;
+
+/**
+ * Parses the {@code com.atlassian.greenhopper.service.sprint.Sprint@...[key=value,...]} strings
+ * Jira returns in the sprint custom field.
+ *
+ * <p>The string is scanned once, only the values of known keys are copied out of it, and
+ * sprint ids and names are interned so that the many issues sharing a sprint also share
+ * those strings. Keys and values are delimited exactly as the former
+ * {@code ([^=\[,]*)=([^,\]]*)} regular expression did.
+ */
+public class GreenhopperSprintParser {
+
+    public static final String SPRINT_CLASS = "com.atlassian.greenhopper.service.sprint.Sprint";
+
+    private static final String NULL_VALUE = "<null>";
+    private static final int MAX_INTERNED = 10_000;
+
+    private final Map<String, String> interned = new ConcurrentHashMap<>();
+
+    public SprintDTO parse(String data) {
+        if (data == null || !data.startsWith(SPRINT_CLASS)) {
+            return null;
+        }
+
+        final SprintDTO sprint = new SprintDTO();
+        final int length = data.length();
+        int keyStart = 0;
+        int i = 0;
+
+        while (i < length) {
+            final char c = data.charAt(i);
+            if (c == '[' || c == ',') {
+                keyStart = i + 1;
+                i++;
+            } else if (c == '=') {
+                int valueEnd = i + 1;
+                while (valueEnd < length && data.charAt(valueEnd) != ',' && data.charAt(valueEnd) != ']') {
+                    valueEnd++;
+                }
+                set(sprint, data, keyStart, i, i + 1, valueEnd);
+                keyStart = valueEnd;
+                i = valueEnd;
+            } else {
+                i++;
+            }
+        }
+
+        return sprint;
+    }
+
+    private void set(SprintDTO sprint, String data, int keyStart, int keyEnd, int valueStart, int valueEnd) {
+        if (isKey(data, keyStart, keyEnd, "id")) {
+            sprint.setId(intern(data.substring(valueStart, valueEnd)));
+        } else if (isKey(data, keyStart, keyEnd, "state")) {
+            final String state = value(data, valueStart, valueEnd);
+            sprint.setStatus(state == null ? null : SprintStatus.valueOf(state));
+        } else if (isKey(data, keyStart, keyEnd, "name")) {
+            sprint.setName(intern(data.substring(valueStart, valueEnd)));
+        } else if (isKey(data, keyStart, keyEnd, "startDate")) {
+            sprint.setStartDate(date(value(data, valueStart, valueEnd)));
+        } else if (isKey(data, keyStart, keyEnd, "endDate")) {
+            sprint.setEndDate(date(value(data, valueStart, valueEnd)));
+        } else if (isKey(data, keyStart, keyEnd, "completeDate")) {
+            sprint.setCompleteDate(date(value(data, valueStart, valueEnd)));
+        }
+    }
+
+    private static boolean isKey(String data, int start, int end, String key) {
+        return end - start == key.length() && data.startsWith(key, start);
+    }
+
+    private static String value(String data, int start, int end) {
+        if (end - start == NULL_VALUE.length() && data.startsWith(NULL_VALUE, start)) {
+            return null;
+        }
+        return data.substring(start, end);
+    }
+
+    private static Date date(String value) {
+        return value == null ? null : DateTime.parse(value).toDate();
+    }
+
+    private String intern(String value) {
+        if (interned.size() >= MAX_INTERNED) {
+            interned.clear();
+        }
+        final String previous = interned.putIfAbsent(value, value);
+        return previous == null ? value : previous;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers a digest of the last {@link IssueDTO} sent to MirrorGate for each issue, so
+ * issues whose mapped fields did not change are not sent again.
+ *
+ * <p>Jira bumps the updated date of an issue for changes the collector never maps, such
+ * as comments or worklogs, so the updated date is left out of the digest. When
+ * {@code mirrorgate.digestCache.file} is set the digests are saved there at the end of
+ * every run and on shutdown, and loaded again on start.
+ */
+@Component
+public class IssueDigestCache implements MeterBinder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IssueDigestCache.class);
+
+    private static final ObjectWriter WRITER = new ObjectMapper()
+        .addMixIn(IssueDTO.class, IgnoreUpdatedDate.class)
+        .writerFor(IssueDTO.class);
+
+    private final LruCache<Long, Long> digests;
+    private final Path file;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder unchanged = new LongAdder();
+
+    @Autowired
+    public IssueDigestCache(
+        @Value("${mirrorgate.digestCache.size:100000}") int size,
+        @Value("${mirrorgate.digestCache.file:}") String file
+    ) {
+        this.digests = new LruCache<>(size);
+        this.file = file.isEmpty() ? null : Paths.get(file);
+        load();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("mirrorgate.issues", sent, LongAdder::sum)
+            .description("Issues sent to MirrorGate, or skipped because they did not change")
+            .tag("result", "sent")
+            .register(registry);
+        FunctionCounter.builder("mirrorgate.issues", unchanged, LongAdder::sum)
+            .description("Issues sent to MirrorGate, or skipped because they did not change")
+            .tag("result", "unchanged")
+            .register(registry);
+        Gauge.builder("mirrorgate.digest.cache.size", digests, LruCache::size)
+            .description("Issues whose last sent digest is remembered")
+            .register(registry);
+    }
+
+    /**
+     * Returns the digests, by id and in page order, of the issues that changed since they
+     * were last sent. Pass them to {@link #sent(Map)} once they reached MirrorGate.
+     */
+    public Map<Long, Long> changed(List<IssueDTO> issues) {
+        final Map<Long, Long> changed = new LinkedHashMap<>();
+        for (final IssueDTO issue : issues) {
+            final long digest = digest(issue);
+            final Long previous = digests.getIfPresent(issue.getId());
+            if (previous != null && previous == digest) {
+                unchanged.increment();
+            } else {
+                changed.put(issue.getId(), digest);
+            }
+        }
+        return changed;
+    }
+
+    public void sent(Map<Long, Long> changed) {
+        changed.forEach(digests::put);
+        sent.add(changed.size());
+    }
+
+    public void remove(Long id) {
+        digests.remove(id);
+    }
+
+    /**
+     * Writes the digests to the configured file, if any, replacing it atomically.
+     */
+    @PreDestroy
+    public void save() {
+        if (file == null) {
+            return;
+        }
+
+        final Map<Long, Long> snapshot = new LinkedHashMap<>();
+        digests.forEach(snapshot::put);
+
+        final Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                for (final Map.Entry<Long, Long> entry : snapshot.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.error("Could not save the issue digests to {}", file, e);
+        }
+    }
+
+    private void load() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                digests.put(in.readLong(), in.readLong());
+            }
+        } catch (EOFException e) {
+            LOGGER.info("-> Loaded {} issue digests from {}", digests.size(), file);
+        } catch (IOException e) {
+            LOGGER.warn("Could not load the issue digests from {}", file, e);
+        }
+    }
+
+    static long digest(IssueDTO issue) {
+        final MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), sha)) {
+            WRITER.writeValue(out, issue);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        final byte[] hash = sha.digest();
+        long digest = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            digest = (digest << 8) | (hash[i] & 0xff);
+        }
+        return digest;
+    }
+
+    @JsonIgnoreProperties("updatedDate")
+    private abstract static class IgnoreUpdatedDate {
+    }
+}
@@ -27,23 +27,21 @@ import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.ProjectDTO;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.SprintDTO;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.IssueTypeMapService;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.StatusMapService;
-import java.io.Serializable;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Date;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
-import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -52,10 +50,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
-public class JiraIssueUtils {
+public class JiraIssueUtils implements MeterBinder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JiraIssueUtils.class);
 
+    private static final int DEFAULT_SPRINT_CACHE_SIZE = 2000;
+
     private final List<String> keywordsFields;
 
     private final Map<JiraIssueFields, String> jiraFields;
@@ -64,23 +64,70 @@ public class JiraIssueUtils {
 
     private final IssueTypeMapService issueTypeMapService;
 
+    private final GreenhopperSprintParser sprintParser = new GreenhopperSprintParser();
+
+    //Sprint strings are repeated on every issue of the sprint, so parse them once
+    private final LruCache<String, SprintDTO> sprintCache;
+
+    private final LruCache<List<String>, SprintDTO> priorSprintCache;
+
+    private final OutcomeTimer mapTimer = new OutcomeTimer("jira.issue.map", "Jira issues mapped to MirrorGate issues");
+
     @Value("${jira.url}")
     private String jiraUrl;
 
+    public JiraIssueUtils(
+            List<String> keywordsFields,
+            Map<JiraIssueFields, String> jiraFields,
+            StatusMapService statusMapService,
+            IssueTypeMapService issueTypeMapService) {
+
+        this(keywordsFields, jiraFields, statusMapService, issueTypeMapService, DEFAULT_SPRINT_CACHE_SIZE);
+    }
+
     @Autowired
     public JiraIssueUtils(
             @Qualifier(FieldsConfig.KEYWORDS_FIELD_BEAN) List<String> keywordsFields,
             @Qualifier(FieldsConfig.JIRA_FIELDS_BEAN) Map<JiraIssueFields, String> jiraFields,
             StatusMapService statusMapService,
-            IssueTypeMapService issueTypeMapService) {
+            IssueTypeMapService issueTypeMapService,
+            @Value("${jira.sprintCache.size:2000}") int sprintCacheSize) {
 
         this.keywordsFields = keywordsFields;
         this.jiraFields = jiraFields;
         this.statusMapService = statusMapService;
         this.issueTypeMapService = issueTypeMapService;
+        this.sprintCache = new LruCache<>(sprintCacheSize);
+        this.priorSprintCache = new LruCache<>(sprintCacheSize);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCache(registry, "descriptor", sprintCache);
+        bindCache(registry, "priorSprint", priorSprintCache);
+        mapTimer.bindTo(registry);
+    }
+
+    private static void bindCache(MeterRegistry registry, String name, LruCache<?, ?> cache) {
+        FunctionCounter.builder("jira.sprint.cache.requests", cache, LruCache::hits)
+            .description("Sprint cache lookups")
+            .tags("cache", name, "result", "hit")
+            .register(registry);
+        FunctionCounter.builder("jira.sprint.cache.requests", cache, LruCache::misses)
+            .description("Sprint cache lookups")
+            .tags("cache", name, "result", "miss")
+            .register(registry);
+        Gauge.builder("jira.sprint.cache.size", cache, LruCache::size)
+            .description("Entries held by the sprint cache")
+            .tag("cache", name)
+            .register(registry);
     }
 
     public IssueDTO map(Issue issue) {
+        return mapTimer.call(() -> mapIssue(issue));
+    }
+
+    private IssueDTO mapIssue(Issue issue) {
         return new IssueDTO()
                 .setId(issue.getId())
                 .setName(issue.getSummary())
@@ -125,20 +172,6 @@ public class JiraIssueUtils {
         return new JiraIssueField<>(getFieldValue(issue, jiraFields.get(field)));
     }
 
-    private <T> T parse(String s, Class<T> type) {
-        if (s == null || s.equals("<null>")) {
-            return null;
-        } else if (type.isEnum()) {
-            Class<? extends Enum> enumType = (Class<? extends Enum>) type;
-            return (T) Enum.valueOf(enumType, s);
-        } else if (type == Date.class) {
-            return (T) DateTime.parse(s).toDate();
-        } else if (type == String.class) {
-            return (T) s;
-        }
-        return null;
-    }
-
     private List<String> objectToStringList(Object o) {
         if (o == null) {
             return null;
@@ -177,37 +210,53 @@ public class JiraIssueUtils {
     }
 
     public SprintDTO getPriorSprint(List<String> data) {
-        List<SprintDTO> sprints = getSprintList(data);
-        SprintDTO latest = null;
-        if (sprints != null && sprints.size() > 0) {
-            sprints.sort(new SprintDateComparator());
-            latest = sprints.get(0);
+        if (data == null) {
+            return null;
         }
-        return latest;
+        return priorSprintCache.get(Collections.unmodifiableList(new ArrayList<>(data)), (sprints) ->
+            selectPriorSprint(sprints.stream().map(this::parseSprint).collect(Collectors.toList())));
     }
 
-    private List<SprintDTO> getSprintList(List<String> data) {
-        return data == null ? null : data.stream().map(this::parseSprint).collect(Collectors.toList());
+    /**
+     * Picks the sprint an issue belongs to: the active one, else the future one, else the one
+     * that ended first. Sprints without end date go last and ties keep the first in the list.
+     */
+    public static SprintDTO selectPriorSprint(Iterable<SprintDTO> sprints) {
+        SprintDTO prior = null;
+        for (SprintDTO sprint : sprints) {
+            prior = prior(prior, sprint);
+        }
+        return prior;
     }
 
-    public SprintDTO parseSprint(String data) {
-        if (data == null || !data.startsWith("com.atlassian.greenhopper.service.sprint.Sprint")) {
-            return null;
+    private static SprintDTO prior(SprintDTO current, SprintDTO candidate) {
+        if (current == null) {
+            return candidate;
+        }
+        if (candidate == null) {
+            return current;
         }
 
-        Matcher match = Pattern.compile("([^=\\[,]*)=([^,\\]]*)").matcher(data);
-        Map<String, String> fieldsAndValue = new HashMap<>();
+        final int byStatus = Integer.compare(statusRank(candidate.getStatus()), statusRank(current.getStatus()));
+        if (byStatus != 0) {
+            return byStatus < 0 ? candidate : current;
+        }
+        if (candidate.getEndDate() == null) {
+            return current;
+        }
+        return current.getEndDate() == null || candidate.getEndDate().before(current.getEndDate())
+            ? candidate : current;
+    }
 
-        while (match.find()) {
-            fieldsAndValue.put(match.group(1), match.group(2));
+    private static int statusRank(SprintStatus status) {
+        if (status == SprintStatus.ACTIVE) {
+            return 0;
         }
-        return new SprintDTO()
-                .setId(fieldsAndValue.get("id"))
-                .setStatus(parse(fieldsAndValue.get("state"), SprintStatus.class))
-                .setName(fieldsAndValue.get("name"))
-                .setStartDate(parse(fieldsAndValue.get("startDate"), Date.class))
-                .setEndDate(parse(fieldsAndValue.get("endDate"), Date.class))
-                .setCompleteDate(parse(fieldsAndValue.get("completeDate"), Date.class));
+        return status == SprintStatus.FUTURE ? 1 : 2;
+    }
+
+    public SprintDTO parseSprint(String data) {
+        return sprintCache.get(data, sprintParser::parse);
     }
 
     private List<String> buildKeywords(Issue issue) {
@@ -306,24 +355,4 @@ public class JiraIssueUtils {
 
     }
 
-    private static class SprintDateComparator implements Comparator<SprintDTO>, Serializable {
-
-        @Override
-        public int compare(SprintDTO o1, SprintDTO o2) {
-            if (o1.getStatus() != o2.getStatus()) {
-                if (o1.getStatus() == SprintStatus.ACTIVE) {
-                    return -1;
-                } else if (o2.getStatus() == SprintStatus.ACTIVE) {
-                    return 1;
-                } else if (o1.getStatus() == SprintStatus.FUTURE) {
-                    return -1;
-                } else if (o2.getStatus() == SprintStatus.FUTURE) {
-                    return 1;
-                }
-            }
-            return o1.getEndDate() != null ? o1.getEndDate().compareTo(o2.getEndDate()) : 1;
-        }
-
-    }
-
 }
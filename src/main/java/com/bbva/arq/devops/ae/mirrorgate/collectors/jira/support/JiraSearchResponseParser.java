@@ -0,0 +1,317 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.config.FieldsConfig;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.ProjectDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.IssueTypeMapService;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.SearchPage;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.StatusMapService;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps a {@code /rest/api/2/search} response to {@link IssueDTO}s while reading it.
+ *
+ * <p>Produces the same DTOs as {@link JiraIssueUtils#map}. Fields that are not mapped are
+ * skipped without being materialized and only the small custom field values are read
+ * as trees.
+ */
+@Component
+public class JiraSearchResponseParser {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = ISODateTimeFormat.dateTime();
+
+    private final List<String> keywordsFields;
+    private final String storyPointsField;
+    private final String sprintField;
+    private final String piField;
+    private final String teamNameField;
+    private final Set<String> customFields = new HashSet<>();
+
+    private final StatusMapService statusMapService;
+    private final IssueTypeMapService issueTypeMapService;
+    private final JiraIssueUtils utils;
+
+    @Value("${jira.url}")
+    private String jiraUrl;
+
+    @Autowired
+    public JiraSearchResponseParser(
+            @Qualifier(FieldsConfig.KEYWORDS_FIELD_BEAN) List<String> keywordsFields,
+            @Qualifier(FieldsConfig.JIRA_FIELDS_BEAN) Map<JiraIssueFields, String> jiraFields,
+            StatusMapService statusMapService,
+            IssueTypeMapService issueTypeMapService,
+            JiraIssueUtils utils) {
+
+        this.keywordsFields = keywordsFields;
+        this.storyPointsField = jiraFields.get(JiraIssueFields.STORY_POINTS);
+        this.sprintField = jiraFields.get(JiraIssueFields.SPRINT);
+        this.piField = jiraFields.get(JiraIssueFields.PI);
+        this.teamNameField = jiraFields.get(JiraIssueFields.TEAM_NAME);
+        this.statusMapService = statusMapService;
+        this.issueTypeMapService = issueTypeMapService;
+        this.utils = utils;
+
+        customFields.addAll(keywordsFields);
+        customFields.add(storyPointsField);
+        customFields.add(sprintField);
+        customFields.add(piField);
+        customFields.add(teamNameField);
+    }
+
+    public SearchPage parse(InputStream in) throws IOException {
+        final List<IssueDTO> issues = new ArrayList<>();
+        int total = 0;
+        int maxResults = 0;
+
+        try (JsonParser parser = MAPPER.getFactory().createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                final JsonToken value = parser.nextToken();
+                if ("total".equals(name)) {
+                    total = parser.getValueAsInt();
+                } else if ("maxResults".equals(name)) {
+                    maxResults = parser.getValueAsInt();
+                } else if ("issues".equals(name) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        issues.add(parseIssue(parser));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return new SearchPage(issues, total, maxResults);
+    }
+
+    private IssueDTO parseIssue(JsonParser parser) throws IOException {
+        final IssueDTO issue = new IssueDTO();
+        final Map<String, JsonNode> custom = new HashMap<>();
+        Map<String, String> project = null;
+        String key = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if ("id".equals(name)) {
+                issue.setId(Long.valueOf(parser.getValueAsString()));
+            } else if ("key".equals(name)) {
+                key = parser.getValueAsString();
+            } else if ("fields".equals(name) && value == JsonToken.START_OBJECT) {
+                project = parseFields(parser, issue, custom);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        final List<String> keywords = new ArrayList<>();
+        if (project != null) {
+            issue.setProject(new ProjectDTO()
+                .setId(project.get("id") == null ? null : Long.valueOf(project.get("id")))
+                .setName(project.get("name"))
+                .setKey(project.get("key")));
+            if (project.get("name") != null) {
+                keywords.add(project.get("name"));
+            }
+            if (project.get("key") != null) {
+                keywords.add(project.get("key"));
+            }
+        }
+        for (String field : keywordsFields) {
+            addOptionValues(custom.get(field), keywords);
+        }
+
+        return issue
+            .setJiraKey(key)
+            .setUrl(jiraUrl + "/browse/" + key)
+            .setEstimate(number(custom.get(storyPointsField)))
+            .setPiNames(strings(custom.get(piField)))
+            .setSprint(utils.getPriorSprint(strings(custom.get(sprintField))))
+            .setTeamName(optionValue(custom.get(teamNameField)))
+            .setKeywords(keywords);
+    }
+
+    private Map<String, String> parseFields(JsonParser parser, IssueDTO issue, Map<String, JsonNode> custom)
+        throws IOException {
+
+        final List<String> parentKeys = new ArrayList<>();
+        final List<String> parentIds = new ArrayList<>();
+        Map<String, String> project = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (customFields.contains(name)) {
+                custom.put(name, parser.readValueAsTree());
+                continue;
+            }
+
+            switch (name) {
+                case "summary":
+                    issue.setName(parser.getValueAsString());
+                    break;
+                case "updated":
+                    issue.setUpdatedDate(DATE_TIME_FORMATTER.parseDateTime(parser.getValueAsString()).toDate());
+                    break;
+                case "issuetype":
+                    final Map<String, String> type = readScalars(parser);
+                    issue.setType(issueTypeMapService.getIssueTypeFor(id(type), type.get("name")));
+                    break;
+                case "status":
+                    final Map<String, String> status = readScalars(parser);
+                    issue.setStatus(statusMapService.getStatusFor(id(status), status.get("name")));
+                    break;
+                case "priority":
+                    issue.setPriority(IssuePriority.fromName(readScalars(parser).get("name")));
+                    break;
+                case "project":
+                    project = readScalars(parser);
+                    break;
+                case "issuelinks":
+                    parseLinks(parser, parentKeys, parentIds);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        issue.setParentKey(parentKeys).setParentId(parentIds);
+        return project;
+    }
+
+    private static void parseLinks(JsonParser parser, List<String> parentKeys, List<String> parentIds)
+        throws IOException {
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            Map<String, String> inward = null;
+            boolean outward = false;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                final JsonToken value = parser.nextToken();
+                if ("inwardIssue".equals(name) && value == JsonToken.START_OBJECT) {
+                    inward = readScalars(parser);
+                } else {
+                    outward |= "outwardIssue".equals(name);
+                    parser.skipChildren();
+                }
+            }
+
+            //Only links with an inward issue and no outward one are inbound parents
+            if (inward != null && !outward) {
+                parentKeys.add(inward.get("key"));
+                final String[] pathParts = URI.create(inward.get("self")).getPath().split("/");
+                parentIds.add(pathParts[pathParts.length - 1]);
+            }
+        }
+    }
+
+    /**
+     * Reads the scalar members of the current object, skipping nested structures.
+     */
+    private static Map<String, String> readScalars(JsonParser parser) throws IOException {
+        final Map<String, String> values = new HashMap<>();
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return values;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            if (parser.nextToken().isScalarValue()) {
+                values.put(name, parser.getValueAsString());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return values;
+    }
+
+    private static Long id(Map<String, String> values) {
+        final String id = values.get("id");
+        return id == null ? null : Long.valueOf(id);
+    }
+
+    private static Double number(JsonNode node) {
+        return node != null && node.isNumber() ? node.doubleValue() : null;
+    }
+
+    private static List<String> strings(JsonNode node) {
+        if (node == null || !node.isArray()) {
+            return null;
+        }
+
+        final List<String> values = new ArrayList<>(node.size());
+        for (JsonNode element : node) {
+            if (element.isTextual()) {
+                values.add(element.textValue());
+            } else if (element.isObject()) {
+                values.add(element.toString());
+            }
+        }
+        return values;
+    }
+
+    private static String optionValue(JsonNode node) {
+        return node != null && node.has("value") ? text(node.get("value")) : null;
+    }
+
+    private static void addOptionValues(JsonNode node, List<String> values) {
+        if (node != null && node.isObject()) {
+            if (node.has("value")) {
+                values.add(text(node.get("value")));
+            }
+            addOptionValues(node.get("child"), values);
+        }
+    }
+
+    private static String text(JsonNode node) {
+        return node.isValueNode() ? node.asText() : node.toString();
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected Jira search response, found " + actual + " instead of " + expected);
+        }
+    }
+}
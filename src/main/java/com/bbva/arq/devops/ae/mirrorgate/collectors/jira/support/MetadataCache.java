@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds an immutable snapshot of some Jira metadata, such as its statuses or issue types,
+ * and replaces it as a whole when it is reloaded.
+ *
+ * <p>Reads never lock: they return the current snapshot, loading the first one if needed.
+ * The snapshot is reloaded in the background every {@code ttlMillis}, and on demand when a
+ * lookup misses, at most once every {@code minRefreshMillis}. Only one load runs at a time
+ * and callers that were waiting for it get its result instead of loading again. A failed
+ * reload keeps the previous snapshot. Listeners registered with {@link #onChange(Consumer)}
+ * are told about every new snapshot on the thread that loaded it.
+ */
+public class MetadataCache<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetadataCache.class);
+
+    private final String name;
+    private final Supplier<T> loader;
+    private final long minRefreshMillis;
+
+    private final List<Consumer<T>> listeners = new CopyOnWriteArrayList<>();
+    private final Object loadLock = new Object();
+    private volatile Snapshot<T> snapshot;
+
+    public MetadataCache(String name, Supplier<T> loader, long ttlMillis, long minRefreshMillis,
+                         ScheduledExecutorService scheduler) {
+        this.name = name;
+        this.loader = loader;
+        this.minRefreshMillis = minRefreshMillis;
+
+        if (ttlMillis > 0) {
+            scheduler.scheduleWithFixedDelay(this::refresh, ttlMillis, ttlMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns the current snapshot, loading it if there is none yet. Failures to load the
+     * first snapshot are thrown to the caller.
+     */
+    public T get() {
+        final Snapshot<T> current = snapshot;
+        return current != null ? current.value : load(null).value;
+    }
+
+    /**
+     * Reloads the snapshot after a lookup in {@code seen} missed, unless it was already
+     * replaced or was loaded less than {@code minRefreshMillis} ago, and returns the result.
+     */
+    public T refreshOnMiss(T seen) {
+        final Snapshot<T> current = snapshot;
+        if (current == null) {
+            return load(null).value;
+        }
+        if (current.value != seen || System.currentTimeMillis() - current.loadedAt < minRefreshMillis) {
+            return current.value;
+        }
+        return load(current).value;
+    }
+
+    /**
+     * Registers a listener called with every snapshot loaded from now on. Exceptions it throws
+     * are logged and do not affect the cache.
+     */
+    public void onChange(Consumer<T> listener) {
+        listeners.add(listener);
+    }
+
+    private void refresh() {
+        try {
+            load(snapshot);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not load the Jira {}", name, e);
+        }
+    }
+
+    private Snapshot<T> load(Snapshot<T> seen) {
+        synchronized (loadLock) {
+            final Snapshot<T> current = snapshot;
+            if (current != seen) {
+                //Loaded by someone else while we waited
+                return current;
+            }
+
+            try {
+                snapshot = new Snapshot<>(loader.get(), System.currentTimeMillis());
+                LOGGER.debug("Loaded the Jira {}", name);
+            } catch (RuntimeException e) {
+                if (current == null) {
+                    throw e;
+                }
+                LOGGER.warn("Could not reload the Jira {}, keeping the previous ones", name, e);
+                //Not retried on every miss until minRefreshMillis passed
+                snapshot = new Snapshot<>(current.value, System.currentTimeMillis());
+                return snapshot;
+            }
+
+            notifyListeners(snapshot.value);
+            return snapshot;
+        }
+    }
+
+    private void notifyListeners(T value) {
+        for (Consumer<T> listener : listeners) {
+            try {
+                listener.accept(value);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Listener of the Jira {} failed", name, e);
+            }
+        }
+    }
+
+    private static class Snapshot<T> {
+
+        private final T value;
+        private final long loadedAt;
+
+        Snapshot(T value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
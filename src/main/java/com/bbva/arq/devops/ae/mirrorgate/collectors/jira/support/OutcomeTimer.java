@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times calls under one meter name, tagging each one with its outcome.
+ *
+ * <p>Components create their timers up front and bind them from their own
+ * {@code MeterBinder#bindTo}, so they still work without a registry, as in tests.
+ * Calls made before the timer is bound are not recorded.
+ */
+public class OutcomeTimer {
+
+    public static final String SUCCESS = "success";
+    public static final String NOT_FOUND = "not_found";
+    public static final String REJECTED = "rejected";
+    public static final String ERROR = "error";
+
+    private final String name;
+    private final String description;
+    private final String[] tags;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private volatile MeterRegistry registry;
+
+    public OutcomeTimer(String name, String description, String... tags) {
+        this.name = name;
+        this.description = description;
+        this.tags = tags;
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        timers.clear();
+        //So that the error rate can be graphed before the first error
+        timer(SUCCESS);
+        timer(ERROR);
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void stop(long start, String outcome) {
+        record(System.nanoTime() - start, TimeUnit.NANOSECONDS, outcome);
+    }
+
+    public void record(long amount, TimeUnit unit, String outcome) {
+        final Timer timer = timer(outcome);
+        if (timer != null) {
+            timer.record(amount, unit);
+        }
+    }
+
+    /**
+     * Runs the call, recording it as a success if it returns and as an error if it throws.
+     */
+    public <T> T call(Supplier<T> call) {
+        final long start = start();
+        String outcome = ERROR;
+        try {
+            final T result = call.get();
+            outcome = SUCCESS;
+            return result;
+        } finally {
+            stop(start, outcome);
+        }
+    }
+
+    public void run(Runnable call) {
+        call(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private Timer timer(String outcome) {
+        final MeterRegistry current = registry;
+        if (current == null) {
+            return null;
+        }
+        return timers.computeIfAbsent(outcome, (o) -> Timer.builder(name)
+            .description(description)
+            .tags(tags)
+            .tag("outcome", o)
+            .register(current));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.api.SprintService;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.SprintDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.CollectorStatusService;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.IssuesService;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.IssueDigestCache;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.OutcomeTimer;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.Pageable;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class MainTest {
+
+    private SprintService sprintApi;
+    private IssuesService service;
+    private ExecutorService sprintSyncExecutor;
+    private Main main;
+
+    private static Pageable<IssueDTO> pages(List<IssueDTO> issues) {
+        final List<IssueDTO> remaining = new ArrayList<>(issues);
+        return () -> {
+            final List<IssueDTO> page = new ArrayList<>(remaining);
+            remaining.clear();
+            return page;
+        };
+    }
+
+    @Before
+    public void init() {
+        sprintApi = mock(SprintService.class);
+        service = mock(IssuesService.class);
+        sprintSyncExecutor = Executors.newSingleThreadExecutor();
+
+        main = new Main();
+        ReflectionTestUtils.setField(main, "sprintApi", sprintApi);
+        ReflectionTestUtils.setField(main, "service", service);
+        ReflectionTestUtils.setField(main, "collectorStatus", mock(CollectorStatusService.class));
+        ReflectionTestUtils.setField(main, "digestCache", new IssueDigestCache(100, ""));
+        ReflectionTestUtils.setField(main, "sprintSyncExecutor", sprintSyncExecutor);
+    }
+
+    @After
+    public void close() {
+        sprintSyncExecutor.shutdownNow();
+    }
+
+    @Test
+    public void itShouldResendUnchangedIssuesOfSprintsOutOfSync() {
+        SprintDTO sprint = new SprintDTO().setId("1").setName("Sprint 1");
+        IssueDTO issue = new IssueDTO().setId(1L).setName("issue").setSprint(sprint);
+        List<IssueDTO> issues = Collections.singletonList(issue);
+
+        when(service.getRecentIssues()).thenReturn(pages(issues), pages(Collections.emptyList()));
+        when(service.getById(anyList())).thenAnswer((invocation) ->
+            pages(invocation.<List<Long>>getArgument(0).isEmpty() ? Collections.emptyList() : issues));
+        when(sprintApi.getSprintSamples()).thenReturn(
+            Collections.emptyList(),
+            Collections.singletonList(new SprintDTO().setId("2").setName("Sprint 2").setIssues(issues)));
+        when(sprintApi.getSprint("1")).thenReturn(new SprintDTO().setId("1").setIssues(issues));
+
+        //The batches sent are views of a buffer cleared afterwards, so keep copies
+        List<List<IssueDTO>> sent = new ArrayList<>();
+        doAnswer((invocation) -> sent.add(new ArrayList<>(invocation.getArgument(0))))
+            .when(sprintApi).sendIssues(anyList());
+
+        main.run();
+        main.run();
+
+        assertEquals(sent, Arrays.asList(issues, issues));
+    }
+
+    @Test
+    public void itShouldTimeEachRequestOfTheIssuesSentOnDemand() {
+        ReflectionTestUtils.setField(main, "sendBatchSize", 1);
+        doNothing().doThrow(new IllegalStateException("MirrorGate is down"))
+            .when(sprintApi).sendIssues(anyList());
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        OutcomeTimer timer = new OutcomeTimer("posts", "Posts");
+        timer.bindTo(registry);
+
+        try {
+            main.updateIssuesOnDemand(Arrays.asList(new IssueDTO().setId(1L), new IssueDTO().setId(2L)), timer);
+        } catch (IllegalStateException e) {
+            //Expected, the second request failed
+        }
+
+        assertEquals(registry.get("posts").tag("outcome", OutcomeTimer.SUCCESS).timer().count(), 1);
+        assertEquals(registry.get("posts").tag("outcome", OutcomeTimer.ERROR).timer().count(), 1);
+    }
+}
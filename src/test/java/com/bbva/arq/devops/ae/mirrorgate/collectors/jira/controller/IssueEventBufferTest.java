@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.Main;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.OutcomeTimer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class IssueEventBufferTest {
+
+    private Main main;
+    private ScheduledExecutorService scheduler;
+    private IssueEventBuffer buffer;
+
+    @Before
+    public void init() {
+        main = mock(Main.class);
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        buffer = new IssueEventBuffer(main, scheduler, 3, 60_000);
+    }
+
+    @After
+    public void close() {
+        buffer.close();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void itShouldSendTheLastEventOfEachIssueOnceFull() {
+        IssueDTO last = new IssueDTO().setId(1L).setName("last");
+
+        buffer.add(new IssueDTO().setId(1L).setName("first"));
+        buffer.add(new IssueDTO().setId(2L));
+        buffer.add(last);
+        verify(main, never()).updateIssuesOnDemand(anyList(), any(OutcomeTimer.class));
+
+        IssueDTO third = new IssueDTO().setId(3L);
+        buffer.add(third);
+
+        ArgumentCaptor<List<IssueDTO>> batch = ArgumentCaptor.forClass(List.class);
+        verify(main).updateIssuesOnDemand(batch.capture(), any(OutcomeTimer.class));
+        assertEquals(batch.getValue().size(), 3);
+        assertEquals(batch.getValue().get(0), last);
+        assertEquals(batch.getValue().get(2), third);
+    }
+
+    @Test
+    public void itShouldNotSendRemovedIssues() {
+        IssueDTO kept = new IssueDTO().setId(2L);
+
+        buffer.add(new IssueDTO().setId(1L));
+        buffer.add(kept);
+        buffer.remove(1L);
+        buffer.flush();
+
+        verify(main).updateIssuesOnDemand(eq(Collections.singletonList(kept)), any(OutcomeTimer.class));
+    }
+
+    @Test
+    public void itShouldSendAfterTheMaxDelay() {
+        buffer.close();
+        buffer = new IssueEventBuffer(main, scheduler, 100, 10);
+
+        IssueDTO issue = new IssueDTO().setId(1L);
+        buffer.add(issue);
+
+        verify(main, timeout(5_000)).updateIssuesOnDemand(eq(Arrays.asList(issue)), any(OutcomeTimer.class));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.Main;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SprintEventQueueTest {
+
+    private Main main;
+    private List<Runnable> tasks;
+    private SprintEventQueue queue;
+
+    @Before
+    public void init() {
+        main = mock(Main.class);
+        tasks = new ArrayList<>();
+        queue = new SprintEventQueue(main, tasks::add, 2);
+    }
+
+    @Test
+    public void itShouldFoldEventsOfASprintAlreadyWaiting() {
+        queue.add("1");
+        queue.add("1");
+        assertEquals(tasks.size(), 1);
+
+        tasks.get(0).run();
+        verify(main).updateSprint("1");
+    }
+
+    @Test
+    public void itShouldQueueAnotherUpdateOnceTheWaitingOneStarted() {
+        queue.add("1");
+        tasks.get(0).run();
+        queue.add("1");
+        tasks.get(1).run();
+
+        verify(main, times(2)).updateSprint("1");
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void itShouldRejectEventsOnceTooManySprintsAreWaiting() {
+        queue.add("1");
+        queue.add("2");
+        queue.add("3");
+    }
+
+    @Test
+    public void itShouldAcceptEventsAgainOnceTheWaitingSprintsStarted() {
+        queue.add("1");
+        queue.add("2");
+        tasks.forEach(Runnable::run);
+        queue.add("3");
+
+        assertEquals(tasks.size(), 3);
+    }
+}
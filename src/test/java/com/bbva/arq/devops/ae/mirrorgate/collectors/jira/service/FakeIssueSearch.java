@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+/**
+ * Answers JQL searches from memory, paging the matching issues the way Jira does.
+ *
+ * <p>Pages are only built once they are waited for, so pages requested ahead can still
+ * be cancelled and the fake can change its behaviour between requests.
+ */
+class FakeIssueSearch implements IssueSearch {
+
+    final List<Request> requests = new ArrayList<>();
+
+    private final Function<String, List<IssueDTO>> matching;
+    private volatile int cap = Integer.MAX_VALUE;
+
+    FakeIssueSearch(Function<String, List<IssueDTO>> matching) {
+        this.matching = matching;
+    }
+
+    /**
+     * Makes the pages built from now on hold at most {@code cap} issues.
+     */
+    void capPageSize(int cap) {
+        this.cap = cap;
+    }
+
+    @Override
+    public synchronized Future<SearchPage> search(String jql, int startAt, int maxResults) {
+        final LazyPage page = new LazyPage(() -> {
+            final List<IssueDTO> issues = matching.apply(jql);
+            final int size = Math.min(maxResults, cap);
+            final int from = Math.min(startAt, issues.size());
+            final int to = Math.min(startAt + size, issues.size());
+            return new SearchPage(new ArrayList<>(issues.subList(from, to)), issues.size(), size);
+        });
+        requests.add(new Request(jql, startAt, maxResults, page));
+        return page;
+    }
+
+    static class Request {
+
+        final String jql;
+        final int startAt;
+        final int maxResults;
+        final Future<SearchPage> page;
+
+        Request(String jql, int startAt, int maxResults, Future<SearchPage> page) {
+            this.jql = jql;
+            this.startAt = startAt;
+            this.maxResults = maxResults;
+            this.page = page;
+        }
+    }
+
+    private static class LazyPage extends FutureTask<SearchPage> {
+
+        LazyPage(Callable<SearchPage> callable) {
+            super(callable);
+        }
+
+        @Override
+        public SearchPage get() throws InterruptedException, ExecutionException {
+            run();
+            return super.get();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service;
+
+import static org.junit.Assert.assertEquals;
+
+import com.atlassian.jira.rest.client.api.RestClientException;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.AdaptivePageSize;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.LruCache;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.OutcomeTimer;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.Pageable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IssuesByIdPageableTest {
+
+    private static final long MISSING = 3L;
+
+    private LruCache<Long, Boolean> missingIds;
+    private int errorStatus;
+    private FakeIssueSearch search;
+
+    private static List<Long> idsOf(String jql) {
+        return Stream.of(jql.substring(jql.indexOf('(') + 1, jql.indexOf(')')).split(","))
+            .map(Long::valueOf)
+            .collect(Collectors.toList());
+    }
+
+    private static List<Long> read(Pageable<IssueDTO> pageable) {
+        final List<Long> ids = new ArrayList<>();
+        List<IssueDTO> page;
+        while ((page = pageable.nextPage()).size() > 0) {
+            page.forEach((i) -> ids.add(i.getId()));
+        }
+        return ids;
+    }
+
+    @Before
+    public void init() {
+        missingIds = new LruCache<>(100);
+        errorStatus = 400;
+        //Like Jira, the whole search fails when one of the ids does not exist
+        search = new FakeIssueSearch((jql) -> {
+            final List<Long> ids = idsOf(jql);
+            if (ids.contains(MISSING)) {
+                throw new RestClientException(new IllegalArgumentException("Issue does not exist"), errorStatus);
+            }
+            return ids.stream().map((id) -> new IssueDTO().setId(id)).collect(Collectors.toList());
+        });
+    }
+
+    private IssuesByIdPageable byId(List<Long> ids, int pageSize) {
+        return new IssuesByIdPageable(search, ids, new AdaptivePageSize(pageSize, pageSize, 10_000, 1_000_000),
+            2, missingIds, new OutcomeTimer("pages", "Pages"));
+    }
+
+    @Test
+    public void itShouldReturnTheOtherIssuesOfAChunkWithAMissingId() {
+        assertEquals(read(byId(Arrays.asList(1L, 2L, 3L, 4L, 5L), 5)), Arrays.asList(1L, 2L, 4L, 5L));
+        assertEquals(missingIds.getIfPresent(MISSING), Boolean.TRUE);
+    }
+
+    @Test
+    public void itShouldLeaveKnownMissingIdsOutOfLaterRequests() {
+        read(byId(Arrays.asList(1L, 2L, 3L, 4L, 5L), 5));
+        search.requests.clear();
+
+        assertEquals(read(byId(Arrays.asList(1L, 2L, 3L, 4L, 5L), 5)), Arrays.asList(1L, 2L, 4L, 5L));
+        assertEquals(search.requests.size(), 1);
+        assertEquals(idsOf(search.requests.get(0).jql), Arrays.asList(1L, 2L, 4L, 5L));
+    }
+
+    @Test
+    public void itShouldKeepTheChunkOrder() {
+        assertEquals(read(byId(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L), 2)), Arrays.asList(1L, 2L, 4L, 5L, 6L, 7L));
+    }
+
+    @Test
+    public void itShouldRequestTheRestOfAChunkWhenJiraCapsThePage() {
+        search.capPageSize(2);
+
+        assertEquals(read(byId(Arrays.asList(1L, 2L, 4L, 5L, 6L), 5)), Arrays.asList(1L, 2L, 4L, 5L, 6L));
+        assertEquals(search.requests.stream().map((r) -> r.startAt).collect(Collectors.toList()),
+            Arrays.asList(0, 2, 4));
+    }
+
+    @Test(expected = RestClientException.class)
+    public void itShouldRethrowAuthenticationErrors() {
+        errorStatus = 401;
+
+        read(byId(Arrays.asList(1L, 2L, 3L), 3));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.AdaptivePageSize;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.OutcomeTimer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JqlSearchPageableTest {
+
+    private static final List<IssueDTO> ISSUES = LongStream.range(0, 10)
+        .mapToObj((id) -> new IssueDTO().setId(id))
+        .collect(Collectors.toList());
+
+    private boolean failing;
+    private FakeIssueSearch search;
+    private JqlSearchPageable pageable;
+
+    @Before
+    public void init() {
+        failing = false;
+        search = new FakeIssueSearch((jql) -> {
+            if (failing) {
+                throw new IllegalStateException("Jira is down");
+            }
+            return ISSUES;
+        });
+        pageable = new JqlSearchPageable(search, "updated > 0", new AdaptivePageSize(1, 3, 10_000, 1_000_000), 2,
+            new OutcomeTimer("pages", "Pages"));
+    }
+
+    private List<Long> readAll(List<Long> ids) {
+        List<IssueDTO> page;
+        while ((page = pageable.nextPage()).size() > 0) {
+            page.forEach((i) -> ids.add(i.getId()));
+        }
+        return ids;
+    }
+
+    private List<Integer> offsets() {
+        return search.requests.stream().map((r) -> r.startAt).collect(Collectors.toList());
+    }
+
+    @Test
+    public void itShouldHandOutPagesInRequestOrder() {
+        assertEquals(readAll(new ArrayList<>()), Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L));
+        assertEquals(offsets(), Arrays.asList(0, 3, 6, 9, 12));
+    }
+
+    @Test
+    public void itShouldRewindWhenJiraReturnsFewerIssuesThanRequested() {
+        List<Long> ids = new ArrayList<>();
+        pageable.nextPage().forEach((i) -> ids.add(i.getId()));
+        //Pages at 3 and 6 were requested ahead with the first page size
+        search.capPageSize(2);
+
+        assertEquals(readAll(ids), Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L));
+        assertEquals(offsets(), Arrays.asList(0, 3, 6, 5, 7, 9, 11));
+        assertTrue(search.requests.get(2).page.isCancelled());
+    }
+
+    @Test
+    public void itShouldCancelThePagesRequestedAheadWhenAPageFails() {
+        pageable.nextPage();
+        failing = true;
+
+        try {
+            pageable.nextPage();
+        } catch (IllegalStateException e) {
+            //Expected, Jira is down
+        }
+
+        assertEquals(offsets(), Arrays.asList(0, 3, 6));
+        assertTrue(search.requests.get(2).page.isCancelled());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class AdaptivePageSizeTest {
+
+    private static final long TARGET_MILLIS = 1000;
+    private static final long TARGET_BYTES = 1_000_000;
+
+    private final AdaptivePageSize size = new AdaptivePageSize(10, 100, TARGET_MILLIS, TARGET_BYTES);
+
+    @Test
+    public void itShouldStartAtTheMaximum() {
+        assertEquals(size.get(), 100);
+    }
+
+    @Test
+    public void itShouldHalveWhenAPageIsSlow() {
+        size.record(100, 100, 100, 1500, -1);
+        assertEquals(size.get(), 50);
+    }
+
+    @Test
+    public void itShouldHalveWhenAPageIsTooBig() {
+        size.record(100, 100, 100, 100, 2_000_000);
+        assertEquals(size.get(), 50);
+    }
+
+    @Test
+    public void itShouldNotGoBelowTheMinimum() {
+        for (int i = 0; i < 10; i++) {
+            size.record(size.get(), size.get(), 100, 1500, -1);
+        }
+        assertEquals(size.get(), 10);
+    }
+
+    @Test
+    public void itShouldGrowByHalfWhileFullPagesAreCheap() {
+        size.record(100, 100, 100, 1500, -1);
+        size.record(50, 50, 50, 100, 1000);
+        assertEquals(size.get(), 75);
+
+        size.record(75, 75, 75, 100, -1);
+        assertEquals(size.get(), 100);
+    }
+
+    @Test
+    public void itShouldKeepTheSizeOfPagesNotFullOrNotCheapEnough() {
+        size.record(100, 100, 100, 1500, -1);
+
+        size.record(50, 20, 50, 100, 1000);
+        assertEquals(size.get(), 50);
+
+        size.record(50, 50, 50, 700, 1000);
+        assertEquals(size.get(), 50);
+
+        size.record(50, 50, 50, 100, 700_000);
+        assertEquals(size.get(), 50);
+    }
+
+    @Test
+    public void itShouldNotGrowPastTheSizeJiraCapped() {
+        size.record(100, 40, 40, 100, -1);
+        assertEquals(size.get(), 40);
+
+        size.record(40, 40, 40, 100, -1);
+        assertEquals(size.get(), 40);
+    }
+
+    @Test
+    public void itShouldNotGoBelowTheMinimumWhenJiraCapsBelowIt() {
+        size.record(100, 5, 5, 100, -1);
+        assertEquals(size.get(), 10);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class BufferedPageableTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger reads = new AtomicInteger();
+
+    @After
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    //Pages 0 to pages - 1 hold their own number, then it fails or ends
+    private Pageable<Integer> source(int pages, boolean fail) {
+        return () -> {
+            final int page = reads.getAndIncrement();
+            if (page < pages) {
+                return Collections.singletonList(page);
+            }
+            if (fail) {
+                throw new IllegalStateException("Jira is down");
+            }
+            return Collections.emptyList();
+        };
+    }
+
+    @Test
+    public void itShouldHandOutThePagesInSourceOrder() {
+        List<Integer> read = new ArrayList<>();
+        try (BufferedPageable<Integer> buffered = new BufferedPageable<>(source(5, false), 2, executor)) {
+            List<Integer> page;
+            while ((page = buffered.nextPage()).size() > 0) {
+                read.addAll(page);
+            }
+            assertEquals(buffered.nextPage(), Collections.emptyList());
+        }
+
+        assertEquals(read, Arrays.asList(0, 1, 2, 3, 4));
+    }
+
+    @Test
+    public void itShouldRethrowTheSourceFailureAfterThePagesReadBeforeIt() {
+        try (BufferedPageable<Integer> buffered = new BufferedPageable<>(source(2, true), 2, executor)) {
+            assertEquals(buffered.nextPage(), Collections.singletonList(0));
+            assertEquals(buffered.nextPage(), Collections.singletonList(1));
+            try {
+                buffered.nextPage();
+                fail("The source failure should have been rethrown");
+            } catch (IllegalStateException e) {
+                assertEquals(e.getMessage(), "Jira is down");
+            }
+            assertEquals(buffered.nextPage(), Collections.emptyList());
+        }
+    }
+
+    @Test
+    public void itShouldStopReadingOnceTheBufferIsFull() throws InterruptedException {
+        try (BufferedPageable<Integer> buffered = new BufferedPageable<>(source(100, false), 2, executor)) {
+            Thread.sleep(200);
+            //Two pages buffered and the reader blocked handing over the third one
+            assertTrue(reads.get() <= 3);
+
+            assertEquals(buffered.nextPage(), Collections.singletonList(0));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support.CheckpointStore.Checkpoint;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CheckpointStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void itShouldResumeFromTheLastRecord() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("checkpoint");
+
+        CheckpointStore store = new CheckpointStore(file, 100);
+        assertNull(store.get());
+        store.append(checkpoint(1000, 1L, 1000));
+        store.append(checkpoint(2000, 2L, 1500, 3L, 2000));
+
+        Checkpoint out = new CheckpointStore(file, 100).get();
+
+        assertEquals(out.getUpdatedDate(), new Date(2000));
+        assertEquals(out.getIssues(), checkpoint(2000, 2L, 1500, 3L, 2000).getIssues());
+    }
+
+    @Test
+    public void itShouldReadRecordsHoldingBareIds() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("checkpoint");
+        Files.write(file, "2000 3,4\n".getBytes(StandardCharsets.US_ASCII));
+
+        Checkpoint out = new CheckpointStore(file, 100).get();
+
+        assertEquals(out.getIssues(), checkpoint(2000, 3L, 2000, 4L, 2000).getIssues());
+    }
+
+    @Test
+    public void itShouldIgnoreATornRecord() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("checkpoint");
+
+        new CheckpointStore(file, 100).append(checkpoint(1000, 1L, 1000));
+        Files.write(file, "2000 3@2000,4".getBytes(StandardCharsets.US_ASCII), StandardOpenOption.APPEND);
+
+        CheckpointStore store = new CheckpointStore(file, 100);
+        assertEquals(store.get().getUpdatedDate(), new Date(1000));
+
+        store.append(checkpoint(3000));
+        Checkpoint out = new CheckpointStore(file, 100).get();
+
+        assertEquals(out.getUpdatedDate(), new Date(3000));
+        assertEquals(out.getIssues(), Collections.emptyMap());
+    }
+
+    @Test
+    public void itShouldCompactTheLog() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("checkpoint");
+
+        CheckpointStore store = new CheckpointStore(file, 3);
+        for (long i = 1; i <= 7; i++) {
+            store.append(checkpoint(i * 1000, i, i * 1000));
+        }
+
+        assertEquals(Files.readAllLines(file), Arrays.asList("6000 6@6000", "7000 7@7000"));
+        assertEquals(new CheckpointStore(file, 3).get().getIssues(), checkpoint(7000, 7L, 7000).getIssues());
+    }
+
+    private static Checkpoint checkpoint(long updatedDate, long... idAndDates) {
+        Map<Long, Date> issues = new HashMap<>();
+        for (int i = 0; i < idAndDates.length; i += 2) {
+            issues.put(idAndDates[i], new Date(idAndDates[i + 1]));
+        }
+        return new Checkpoint(new Date(updatedDate), issues);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.SprintDTO;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+public class GreenhopperSprintParserTest {
+
+    private final GreenhopperSprintParser parser = new GreenhopperSprintParser();
+
+    private static String sprint(String fields) {
+        return GreenhopperSprintParser.SPRINT_CLASS + "@" + Integer.toHexString(fields.hashCode()) + "[" + fields + "]";
+    }
+
+    @Test
+    public void itShouldShareRepeatedIdsAndNames() {
+        SprintDTO first = parser.parse(sprint("id=" + 1941 + ",name=" + "MIRRORGATE_" + "SP3"));
+        SprintDTO second = parser.parse(sprint("id=" + 1941 + ",name=" + "MIRRORGATE_" + "SP3"));
+
+        assertSame(first.getId(), second.getId());
+        assertSame(first.getName(), second.getName());
+    }
+
+    @Test
+    public void itShouldKeepValuesContainingSeparatorsOfKeys() {
+        SprintDTO out = parser.parse(sprint("id=1003,name=SP=1[a],state=FUTURE"));
+
+        assertEquals(out.getId(), "1003");
+        assertEquals(out.getName(), "SP=1[a");
+        assertEquals(out.getStatus(), SprintStatus.FUTURE);
+    }
+
+    @Test
+    public void itShouldReadNullDates() {
+        SprintDTO out = parser.parse(sprint("id=1003,startDate=2017-06-28T09:00:15.296+02:00,endDate=<null>"));
+
+        assertEquals(out.getStartDate(), DateTime.parse("2017-06-28T09:00:15.296+02:00").toDate());
+        assertNull(out.getEndDate());
+        assertNull(out.getCompleteDate());
+    }
+
+    @Test
+    public void itShouldIgnoreUnknownAndEmptyKeys() {
+        SprintDTO out = parser.parse(sprint("=1,rapidViewId=879,goal=,id=7"));
+
+        assertEquals(out.getId(), "7");
+        assertNull(out.getName());
+    }
+}
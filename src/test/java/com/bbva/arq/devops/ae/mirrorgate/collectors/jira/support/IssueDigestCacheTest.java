@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import static org.junit.Assert.assertEquals;
+
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IssueDigestCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static IssueDTO issue(long id, String name, long updatedDate) {
+        return new IssueDTO()
+            .setId(id)
+            .setName(name)
+            .setStatus(IssueStatus.IN_PROGRESS)
+            .setUpdatedDate(new Date(updatedDate));
+    }
+
+    @Test
+    public void itShouldSkipIssuesThatOnlyChangedTheirUpdatedDate() {
+        IssueDigestCache cache = new IssueDigestCache(100, "");
+        cache.sent(cache.changed(Arrays.asList(issue(1, "a", 1000), issue(2, "b", 1000))));
+
+        assertEquals(cache.changed(Arrays.asList(issue(1, "a", 2000), issue(2, "c", 2000))).keySet(),
+            Collections.singleton(2L));
+    }
+
+    @Test
+    public void itShouldSendIssuesAgainOnceRemoved() {
+        IssueDigestCache cache = new IssueDigestCache(100, "");
+        cache.sent(cache.changed(Collections.singletonList(issue(1, "a", 1000))));
+        cache.remove(1L);
+
+        assertEquals(cache.changed(Collections.singletonList(issue(1, "a", 1000))).keySet(),
+            Collections.singleton(1L));
+    }
+
+    @Test
+    public void itShouldOnlyRememberIssuesThatWereSent() {
+        IssueDigestCache cache = new IssueDigestCache(100, "");
+        cache.changed(Collections.singletonList(issue(1, "a", 1000)));
+
+        assertEquals(cache.changed(Collections.singletonList(issue(1, "a", 1000))).keySet(),
+            Collections.singleton(1L));
+    }
+
+    @Test
+    public void itShouldLoadTheSavedDigests() {
+        String file = folder.getRoot().toPath().resolve("digests").toString();
+        IssueDigestCache cache = new IssueDigestCache(100, file);
+        cache.sent(cache.changed(Arrays.asList(issue(1, "a", 1000), issue(2, "b", 1000))));
+        cache.save();
+
+        IssueDigestCache loaded = new IssueDigestCache(100, file);
+
+        assertEquals(loaded.changed(Arrays.asList(issue(1, "a", 1000), issue(2, "c", 1000))).keySet(),
+            Collections.singleton(2L));
+    }
+}
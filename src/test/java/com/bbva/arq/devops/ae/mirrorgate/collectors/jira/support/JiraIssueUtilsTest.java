@@ -19,13 +19,18 @@ package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.SprintDTO;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.IssueTypeMapService;
 import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.StatusMapService;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Test;
@@ -39,6 +44,22 @@ import org.springframework.test.context.junit4.SpringRunner;
 @SpringBootTest
 public class JiraIssueUtilsTest {
 
+    //The comparator getPriorSprint used to sort with. Only consistent when every sprint has an end date
+    private static final Comparator<SprintDTO> LEGACY_ORDER = (o1, o2) -> {
+        if (o1.getStatus() != o2.getStatus()) {
+            if (o1.getStatus() == SprintStatus.ACTIVE) {
+                return -1;
+            } else if (o2.getStatus() == SprintStatus.ACTIVE) {
+                return 1;
+            } else if (o1.getStatus() == SprintStatus.FUTURE) {
+                return -1;
+            } else if (o2.getStatus() == SprintStatus.FUTURE) {
+                return 1;
+            }
+        }
+        return o1.getEndDate().compareTo(o2.getEndDate());
+    };
+
     @Autowired
     private List<String> keywordsFields;
 
@@ -191,4 +212,49 @@ public class JiraIssueUtilsTest {
 
         assertNull(out);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void itShouldReuseParsedSprints() {
+        String in = "com.atlassian.greenhopper.service.sprint.Sprint@20d5ab81[id=1003,state=ACTIVE,name=SOME_SPRINT]";
+
+        SprintDTO first = issueUtils.parseSprint(in);
+        SprintDTO second = issueUtils.parseSprint(new String(in));
+
+        assertSame(first, second);
+        assertSame(issueUtils.getPriorSprint(Arrays.asList(in)), issueUtils.getPriorSprint(Arrays.asList(in)));
+    }
+
+    @Test
+    public void itShouldSelectTheSameSprintAsSortingDid() {
+        Random random = new Random(42);
+        SprintStatus[] statuses = {SprintStatus.ACTIVE, SprintStatus.FUTURE, SprintStatus.CLOSED, null};
+
+        for (int run = 0; run < 5000; run++) {
+            List<SprintDTO> sprints = new ArrayList<>();
+            int size = 1 + random.nextInt(60);
+            for (int i = 0; i < size; i++) {
+                sprints.add(new SprintDTO()
+                    .setId(String.valueOf(i))
+                    .setStatus(statuses[random.nextInt(statuses.length)])
+                    //A small pool of dates so that ties are frequent
+                    .setEndDate(new Date(1_500_000_000_000L + random.nextInt(20) * 86_400_000L)));
+            }
+
+            List<SprintDTO> sorted = new ArrayList<>(sprints);
+            sorted.sort(LEGACY_ORDER);
+
+            assertSame(JiraIssueUtils.selectPriorSprint(sprints), sorted.get(0));
+        }
+    }
+
+    @Test
+    public void itShouldSelectSprintsWithoutEndDateLast() {
+        SprintDTO noEndDate = new SprintDTO().setId("1").setStatus(SprintStatus.CLOSED);
+        SprintDTO ended = new SprintDTO().setId("2").setStatus(SprintStatus.CLOSED).setEndDate(new Date());
+
+        assertSame(JiraIssueUtils.selectPriorSprint(Arrays.asList(noEndDate, null, ended)), ended);
+        assertSame(JiraIssueUtils.selectPriorSprint(Arrays.asList(ended, noEndDate)), ended);
+        assertSame(JiraIssueUtils.selectPriorSprint(Arrays.asList(noEndDate, null)), noEndDate);
+        assertNull(JiraIssueUtils.selectPriorSprint(Arrays.asList(null, null)));
+    }
+}
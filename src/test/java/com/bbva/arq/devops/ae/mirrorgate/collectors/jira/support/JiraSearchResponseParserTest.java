@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.atlassian.jira.rest.client.api.domain.IssueType;
+import com.atlassian.jira.rest.client.api.domain.Status;
+import com.atlassian.jira.rest.client.internal.json.IssueJsonParser;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.dto.IssueDTO;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.IssueTypeMapService;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.SearchPage;
+import com.bbva.arq.devops.ae.mirrorgate.collectors.jira.service.StatusMapService;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JiraSearchResponseParserTest {
+
+    private static final String RESPONSE = "{"
+        + "\"expand\":\"schema,names\",\"startAt\":0,\"maxResults\":50,\"total\":2,"
+        + "\"issues\":[{"
+        + "  \"id\":\"10001\",\"self\":\"http://jira/rest/api/2/issue/10001\",\"key\":\"MG-1\","
+        + "  \"fields\":{"
+        + "    \"summary\":\"First\","
+        + "    \"issuetype\":{\"self\":\"http://jira/rest/api/2/issuetype/7\",\"id\":\"7\",\"name\":\"Story\","
+        + "                   \"description\":\"\",\"subtask\":false},"
+        + "    \"status\":{\"self\":\"http://jira/rest/api/2/status/3\",\"id\":\"3\",\"name\":\"In Progress\","
+        + "                \"description\":\"\",\"statusCategory\":{\"id\":4,\"key\":\"x\"}},"
+        + "    \"priority\":{\"self\":\"http://jira/rest/api/2/priority/2\",\"id\":\"2\",\"name\":\"High\"},"
+        + "    \"project\":{\"self\":\"http://jira/rest/api/2/project/10100\",\"id\":\"10100\",\"key\":\"MG\","
+        + "                 \"name\":\"MirrorGate\",\"avatarUrls\":{\"16x16\":\"a\"}},"
+        + "    \"created\":\"2017-06-20T10:00:00.000+0200\","
+        + "    \"updated\":\"2017-06-27T18:59:00.000+0200\","
+        + "    \"comment\":{\"comments\":[{\"self\":\"http://jira/rest/api/2/issue/10001/comment/1\",\"id\":\"1\","
+        + "                  \"body\":\"ignored\",\"created\":\"2017-06-27T18:59:00.000+0200\","
+        + "                  \"updated\":\"2017-06-27T18:59:00.000+0200\"}],\"total\":1},"
+        + "    \"issuelinks\":["
+        + "      {\"id\":\"1\",\"type\":{\"id\":\"1\",\"name\":\"Parent\",\"inward\":\"is child of\","
+        + "                          \"outward\":\"is parent of\",\"self\":\"http://jira/rest/api/2/issueLinkType/1\"},"
+        + "       \"inwardIssue\":{\"id\":\"10000\",\"key\":\"MG-0\",\"self\":\"http://jira/rest/api/2/issue/10000\"}},"
+        + "      {\"id\":\"2\",\"type\":{\"id\":\"1\",\"name\":\"Parent\",\"inward\":\"is child of\","
+        + "                          \"outward\":\"is parent of\",\"self\":\"http://jira/rest/api/2/issueLinkType/1\"},"
+        + "       \"outwardIssue\":{\"id\":\"10002\",\"key\":\"MG-2\",\"self\":\"http://jira/rest/api/2/issue/10002\"}}"
+        + "    ],"
+        + "    \"customfield_1\":5.0,"
+        + "    \"customfield_2\":[\"com.atlassian.greenhopper.service.sprint.Sprint@1[id=1,state=CLOSED,name=S1]\","
+        + "                       \"com.atlassian.greenhopper.service.sprint.Sprint@2[id=2,state=ACTIVE,name=S2]\"],"
+        + "    \"customfield_3\":{\"value\":\"Team\",\"id\":\"1\"},"
+        + "    \"customfield_4\":{\"value\":\"Area\",\"child\":{\"value\":\"Subarea\"}},"
+        + "    \"customfield_5\":[\"PI1\"]"
+        + "  }"
+        + "},{"
+        + "  \"id\":\"10003\",\"key\":\"MG-3\","
+        + "  \"fields\":{\"summary\":\"Second\",\"priority\":null,\"customfield_1\":null,\"customfield_3\":null}"
+        + "}]}";
+
+    private static final String JIRA_URL = "http://jira";
+
+    private JiraIssueUtils issueUtils;
+    private JiraSearchResponseParser parser;
+
+    @Before
+    public void init() {
+        final Map<JiraIssueFields, String> fields = new HashMap<>();
+        fields.put(JiraIssueFields.STORY_POINTS, "customfield_1");
+        fields.put(JiraIssueFields.SPRINT, "customfield_2");
+        fields.put(JiraIssueFields.TEAM_NAME, "customfield_3");
+        fields.put(JiraIssueFields.KEYWORDS, "customfield_3,customfield_4");
+        fields.put(JiraIssueFields.PI, "customfield_5");
+        final List<String> keywords = Arrays.asList("customfield_3", "customfield_4");
+
+        final StatusMapService statusMapService = mock(StatusMapService.class);
+        when(statusMapService.getStatusFor(3L, "In Progress")).thenReturn(IssueStatus.IN_PROGRESS);
+        final IssueTypeMapService issueTypeMapService = mock(IssueTypeMapService.class);
+        when(issueTypeMapService.getIssueTypeFor(7L, "Story")).thenReturn("Story");
+        when(statusMapService.getStatusFor(any(Status.class))).thenAnswer((invocation) -> {
+            Status status = invocation.getArgument(0);
+            return statusMapService.getStatusFor(status.getId(), status.getName());
+        });
+        when(issueTypeMapService.getIssueTypeFor(any(IssueType.class))).thenAnswer((invocation) -> {
+            IssueType type = invocation.getArgument(0);
+            return issueTypeMapService.getIssueTypeFor(type.getId(), type.getName());
+        });
+
+        issueUtils = new JiraIssueUtils(keywords, fields, statusMapService, issueTypeMapService);
+        ReflectionTestUtils.setField(issueUtils, "jiraUrl", JIRA_URL);
+        parser = new JiraSearchResponseParser(keywords, fields, statusMapService, issueTypeMapService, issueUtils);
+        ReflectionTestUtils.setField(parser, "jiraUrl", JIRA_URL);
+    }
+
+    /**
+     * Maps the issue the way the webhook and the former search path do, through JRCP.
+     */
+    private IssueDTO mapWithJiraIssueUtils(int index) throws JSONException {
+        JSONObject issue = new JSONObject(RESPONSE).getJSONArray("issues").getJSONObject(index);
+        issue.put("expand", "names,schema");
+
+        JSONObject names = new JSONObject();
+        JSONObject schema = new JSONObject();
+        for (String field : Arrays.asList("customfield_1", "customfield_2", "customfield_3", "customfield_4",
+            "customfield_5")) {
+            names.put(field, field);
+            schema.put(field, new JSONObject().put("type", "CUSTOM"));
+        }
+
+        return issueUtils.map(new IssueJsonParser(names, schema).parse(issue));
+    }
+
+    @Test
+    public void itShouldMapTheSameFieldsAsJiraIssueUtils() throws IOException, JSONException {
+        IssueDTO streamed = parser.parse(new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)))
+            .getIssues().get(0);
+        IssueDTO mapped = mapWithJiraIssueUtils(0);
+
+        assertEquals(streamed.getId(), mapped.getId());
+        assertEquals(streamed.getJiraKey(), mapped.getJiraKey());
+        assertEquals(streamed.getName(), mapped.getName());
+        assertEquals(streamed.getType(), mapped.getType());
+        assertEquals(streamed.getStatus(), mapped.getStatus());
+        assertEquals(streamed.getPriority(), mapped.getPriority());
+        assertEquals(streamed.getEstimate(), mapped.getEstimate());
+        assertEquals(streamed.getSprint().getId(), mapped.getSprint().getId());
+        assertEquals(streamed.getSprint().getName(), mapped.getSprint().getName());
+        assertEquals(streamed.getSprint().getStatus(), mapped.getSprint().getStatus());
+        assertEquals(streamed.getPiNames(), mapped.getPiNames());
+        assertEquals(streamed.getTeamName(), mapped.getTeamName());
+        assertEquals(streamed.getKeywords(), mapped.getKeywords());
+        assertEquals(streamed.getParentKey(), mapped.getParentKey());
+        assertEquals(streamed.getParentId(), mapped.getParentId());
+        assertEquals(streamed.getProject().getId(), mapped.getProject().getId());
+        assertEquals(streamed.getProject().getKey(), mapped.getProject().getKey());
+        assertEquals(streamed.getProject().getName(), mapped.getProject().getName());
+        assertEquals(streamed.getUpdatedDate(), mapped.getUpdatedDate());
+        assertEquals(streamed.getUrl(), mapped.getUrl());
+    }
+
+    @Test
+    public void itShouldMapTheFieldsOfASearchPage() throws IOException {
+        SearchPage page = parser.parse(new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(page.getTotal(), 2);
+        assertEquals(page.getMaxResults(), 50);
+        assertEquals(page.getIssues().size(), 2);
+
+        IssueDTO issue = page.getIssues().get(0);
+        assertEquals(issue.getId(), (Long) 10001L);
+        assertEquals(issue.getJiraKey(), "MG-1");
+        assertEquals(issue.getName(), "First");
+        assertEquals(issue.getType(), "Story");
+        assertEquals(issue.getStatus(), IssueStatus.IN_PROGRESS);
+        assertEquals(issue.getPriority(), IssuePriority.HIGH);
+        assertEquals(issue.getEstimate(), (Double) 5.0);
+        assertEquals(issue.getSprint().getName(), "S2");
+        assertEquals(issue.getPiNames(), Collections.singletonList("PI1"));
+        assertEquals(issue.getTeamName(), "Team");
+        assertEquals(issue.getKeywords(), Arrays.asList("MirrorGate", "MG", "Team", "Area", "Subarea"));
+        assertEquals(issue.getParentKey(), Collections.singletonList("MG-0"));
+        assertEquals(issue.getParentId(), Collections.singletonList("10000"));
+        assertEquals(issue.getProject().getId(), (Long) 10100L);
+        assertEquals(issue.getProject().getKey(), "MG");
+        assertEquals(issue.getUpdatedDate(), DateTime.parse("2017-06-27T18:59:00.000+02:00").toDate());
+        assertEquals(issue.getUrl(), "http://jira/browse/MG-1");
+    }
+
+    @Test
+    public void itShouldNotFailOnMissingOrNullFields() throws IOException {
+        SearchPage page = parser.parse(new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)));
+
+        IssueDTO issue = page.getIssues().get(1);
+        assertEquals(issue.getName(), "Second");
+        assertNull(issue.getPriority());
+        assertNull(issue.getEstimate());
+        assertNull(issue.getSprint());
+        assertNull(issue.getTeamName());
+        assertNull(issue.getProject());
+        assertEquals(issue.getKeywords(), Collections.emptyList());
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class LongIntHashMapTest {
+
+    @Test
+    public void itShouldBehaveAsAHashMap() {
+        Random random = new Random(42);
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            //Few distinct keys, so removals often hit keys in the middle of a probe run
+            long key = random.nextInt(5_000) - 10;
+            if (random.nextInt(3) == 0) {
+                assertEquals(map.remove(key), expected.remove(key) != null);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+
+        assertEquals(map.size(), expected.size());
+        for (long key = -10; key < 5_000; key++) {
+            assertEquals(map.containsKey(key), expected.containsKey(key));
+            assertEquals(map.get(key, -1), (int) expected.getOrDefault(key, -1));
+        }
+
+        Set<Long> keys = new HashSet<>();
+        map.forEachKey(keys::add);
+        assertEquals(keys, expected.keySet());
+    }
+}
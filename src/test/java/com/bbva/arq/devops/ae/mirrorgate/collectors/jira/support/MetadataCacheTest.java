@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class MetadataCacheTest {
+
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+
+    @Test
+    public void itShouldLoadOnceForConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MetadataCache<Integer> cache = new MetadataCache<>("test", () -> {
+            if (loads.incrementAndGet() == 2) {
+                loading.countDown();
+                await(release);
+            }
+            return loads.get();
+        }, 0, 0, scheduler);
+
+        Integer first = cache.get();
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> misses = new ArrayList<>();
+            misses.add(threads.submit(() -> cache.refreshOnMiss(first)));
+            loading.await();
+            for (int i = 0; i < 3; i++) {
+                misses.add(threads.submit(() -> cache.refreshOnMiss(first)));
+            }
+            release.countDown();
+
+            for (Future<Integer> miss : misses) {
+                assertEquals(miss.get(), Integer.valueOf(2));
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+        assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void itShouldKeepTheSnapshotWhenAReloadFails() {
+        AtomicInteger loads = new AtomicInteger();
+        MetadataCache<String> cache = new MetadataCache<>("test", () -> {
+            if (loads.incrementAndGet() > 1) {
+                throw new IllegalStateException("Jira is down");
+            }
+            return "statuses";
+        }, 0, 0, scheduler);
+
+        String first = cache.get();
+
+        assertSame(cache.refreshOnMiss(first), first);
+        assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void itShouldNotReloadMoreOftenThanAllowed() {
+        AtomicInteger loads = new AtomicInteger();
+        MetadataCache<Integer> cache = new MetadataCache<>("test", loads::incrementAndGet, 0, 60_000, scheduler);
+
+        cache.refreshOnMiss(cache.get());
+
+        assertEquals(loads.get(), 1);
+    }
+
+    @Test
+    public void itShouldTellListenersAboutNewSnapshotsOnly() {
+        AtomicInteger loads = new AtomicInteger();
+        MetadataCache<Integer> cache = new MetadataCache<>("test", () -> {
+            if (loads.incrementAndGet() == 3) {
+                throw new IllegalStateException("Jira is down");
+            }
+            return loads.get();
+        }, 0, 0, scheduler);
+        List<Integer> seen = new ArrayList<>();
+        cache.onChange(seen::add);
+
+        cache.refreshOnMiss(cache.refreshOnMiss(cache.get()));
+
+        assertEquals(seen, Arrays.asList(1, 2));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
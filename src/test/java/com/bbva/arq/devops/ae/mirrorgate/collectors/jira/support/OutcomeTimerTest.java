@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Banco Bilbao Vizcaya Argentaria, S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.bbva.arq.devops.ae.mirrorgate.collectors.jira.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+public class OutcomeTimerTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void itShouldTagCallsWithTheirOutcome() {
+        OutcomeTimer timer = new OutcomeTimer("test.calls", "Test calls", "operation", "test");
+        timer.bindTo(registry);
+
+        assertEquals(timer.call(() -> "done"), "done");
+        try {
+            timer.run(() -> {
+                throw new IllegalStateException("failed");
+            });
+            fail("The failure should have been rethrown");
+        } catch (IllegalStateException expected) {
+            //Recorded as an error
+        }
+        timer.stop(timer.start(), OutcomeTimer.NOT_FOUND);
+
+        assertEquals(count(OutcomeTimer.SUCCESS), 1);
+        assertEquals(count(OutcomeTimer.ERROR), 1);
+        assertEquals(count(OutcomeTimer.NOT_FOUND), 1);
+    }
+
+    @Test
+    public void itShouldNotRecordBeforeBeingBound() {
+        OutcomeTimer timer = new OutcomeTimer("test.calls", "Test calls", "operation", "test");
+
+        timer.call(() -> "done");
+        timer.bindTo(registry);
+
+        assertEquals(count(OutcomeTimer.SUCCESS), 0);
+    }
+
+    private long count(String outcome) {
+        return registry.get("test.calls").tags("operation", "test", "outcome", outcome).timer().count();
+    }
+}